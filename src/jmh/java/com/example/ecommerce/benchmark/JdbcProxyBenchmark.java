@@ -0,0 +1,93 @@
+package com.example.ecommerce.benchmark;
+
+import com.example.ecommerce.config.JdbcMetricsPostProcessor;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the metered DataSource (JdbcMetricsPostProcessor) against the bare Hikari pool it wraps, on an embedded
+ * PostgreSQL. Each operation borrows a connection, runs one prepared single-row query and returns the connection,
+ * as a typical repository call does; the difference between the two is the proxy overhead per statement.
+ * Budget: metered within a few percent of unwrapped; otherwise turn the proxy off with metrics.jdbc.enabled=false.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class JdbcProxyBenchmark {
+
+    private EmbeddedPostgres postgres;
+    private HikariDataSource pool;
+    private DataSource metered;
+
+    @Setup
+    public void setUp() throws IOException {
+        postgres = EmbeddedPostgres.builder().start();
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(postgres.getJdbcUrl("postgres", "postgres"));
+        config.setUsername("postgres");
+        config.setPassword("postgres");
+        config.setMaximumPoolSize(8);
+        pool = new HikariDataSource(config);
+
+        StaticListableBeanFactory beans = new StaticListableBeanFactory(
+                Map.of("meterRegistry", new SimpleMeterRegistry()));
+        metered = (DataSource) new JdbcMetricsPostProcessor(beans.getBeanProvider(MeterRegistry.class))
+                .postProcessAfterInitialization(pool, "dataSource");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        pool.close();
+        postgres.close();
+    }
+
+    @Benchmark
+    public int unwrapped() throws SQLException {
+        return query(pool);
+    }
+
+    @Benchmark
+    public int metered() throws SQLException {
+        return query(metered);
+    }
+
+    private static int query(DataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT ?")) {
+            statement.setInt(1, 42);
+            try (ResultSet result = statement.executeQuery()) {
+                result.next();
+                return result.getInt(1);
+            }
+        }
+    }
+}
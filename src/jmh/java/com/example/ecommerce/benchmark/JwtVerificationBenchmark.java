@@ -0,0 +1,80 @@
+package com.example.ecommerce.benchmark;
+
+import com.example.ecommerce.model.User;
+import com.example.ecommerce.security.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.crypto.SecretKey;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of JWT authentication: the old filter path (validate + extract, three parses with a
+ * parser built each time) against JwtUtil.parseToken on a cold cache (one parse) and a warm cache (no parse).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    private static final String SECRET = "benchmark_secret_key_that_is_at_least_32_characters_long";
+
+    private SecretKey secretKey;
+    private JwtUtil cachedJwtUtil;
+    private JwtUtil uncachedJwtUtil;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        secretKey = Keys.hmacShaKeyFor(SECRET.getBytes());
+        cachedJwtUtil = new JwtUtil(SECRET, 3_600_000, 10_000, new SimpleMeterRegistry());
+        // Size 0 disables the cache, so each call verifies the signature
+        uncachedJwtUtil = new JwtUtil(SECRET, 3_600_000, 0, new SimpleMeterRegistry());
+        token = cachedJwtUtil.generateToken(new User("Benchmark", "benchmark@example.com", "unused"));
+        cachedJwtUtil.parseToken(token);
+    }
+
+    @Benchmark
+    public String legacyValidateThenExtract() {
+        // validateToken: parse + isTokenExpired parse; extractEmail: third parse
+        legacyParse(token);
+        if (legacyParse(token).getExpiration().before(new Date())) {
+            return null;
+        }
+        return legacyParse(token).getSubject();
+    }
+
+    @Benchmark
+    public String singleParse() {
+        return uncachedJwtUtil.parseToken(token).map(Claims::getSubject).orElse(null);
+    }
+
+    @Benchmark
+    public String cachedParse() {
+        return cachedJwtUtil.parseToken(token).map(Claims::getSubject).orElse(null);
+    }
+
+    private Claims legacyParse(String jwt) {
+        return Jwts.parser()
+                .verifyWith(secretKey)
+                .build()
+                .parseSignedClaims(jwt)
+                .getPayload();
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.ecommerce.benchmark;
+
+import com.example.ecommerce.security.RateLimiter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request overhead of a rate limit check; the budget is under 1 µs.
+ * hotKey: every thread hits the same bucket (worst-case contention, e.g. one IP in a burst).
+ * spreadKeys: threads hit 10k distinct existing buckets (typical traffic).
+ * rejected: the bucket is empty, so the check computes the Retry-After wait.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class RateLimiterBenchmark {
+
+    private static final int KEYS = 10_000;
+
+    private RateLimiter allowingLimiter;
+    private RateLimiter rejectingLimiter;
+    private String[] keys;
+
+    @Setup
+    public void setUp() {
+        // Large enough that the measured checks never run out of tokens
+        allowingLimiter = new RateLimiter(Long.MAX_VALUE / 2, 1e12, KEYS * 2);
+        rejectingLimiter = new RateLimiter(1, 1e-6, KEYS * 2);
+
+        keys = new String[KEYS];
+        long now = System.nanoTime();
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = "10.0." + (i / 256) + "." + (i % 256);
+            allowingLimiter.tryAcquire(keys[i], now);
+        }
+        rejectingLimiter.tryAcquire(keys[0], now);
+    }
+
+    @Benchmark
+    public long hotKey() {
+        return allowingLimiter.tryAcquire(keys[0], System.nanoTime());
+    }
+
+    @Benchmark
+    public long spreadKeys() {
+        return allowingLimiter.tryAcquire(keys[ThreadLocalRandom.current().nextInt(KEYS)], System.nanoTime());
+    }
+
+    @Benchmark
+    public long rejected() {
+        return rejectingLimiter.tryAcquire(keys[0], System.nanoTime());
+    }
+}
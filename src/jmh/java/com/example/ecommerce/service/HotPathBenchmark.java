@@ -0,0 +1,164 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.dto.OrderResponse;
+import com.example.ecommerce.dto.ProductResponse;
+import com.example.ecommerce.model.Cart;
+import com.example.ecommerce.model.CartItem;
+import com.example.ecommerce.model.Category;
+import com.example.ecommerce.model.Order;
+import com.example.ecommerce.model.OrderItem;
+import com.example.ecommerce.model.Product;
+import com.example.ecommerce.model.User;
+import com.example.ecommerce.repository.OrderRepository;
+import com.example.ecommerce.security.JwtUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the per-request hot paths: DTO mapping, cart and order totals, JWT issue/verify, order
+ * numbers and JSON serialization of the main responses. Run with the gc profiler (the benchmarks profile
+ * default) so gc.alloc.rate.norm shows bytes allocated per operation next to ops/ms.
+ * Lives in the service package to reach the package-private mappers; repositories are not touched except
+ * OrderRepository.existsByOrderNumber, stubbed to false.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HotPathBenchmark {
+
+    private static final String SECRET = "benchmark_secret_key_that_is_at_least_32_characters_long";
+
+    // Line items per cart and order
+    @Param({"3", "20"})
+    public int items;
+
+    private ProductService productService;
+    private OrderService orderService;
+    private JwtUtil jwtUtil;
+    private ObjectMapper objectMapper;
+
+    private User user;
+    private Product product;
+    private Cart cart;
+    private Order order;
+    private List<OrderItem> orderItems;
+    private ProductResponse productResponse;
+    private OrderResponse orderResponse;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        OrderRepository orderRepository = (OrderRepository) Proxy.newProxyInstance(
+                OrderRepository.class.getClassLoader(), new Class<?>[]{OrderRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("existsByOrderNumber")) {
+                        return false;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        productService = new ProductService(null, null);
+        orderService = new OrderService(orderRepository, null, null, null, null, null, null, null, null, null);
+        // Size 0 disables the verified-token cache, so jwtValidate measures a full signature check
+        // (JwtVerificationBenchmark compares it with a cache hit)
+        jwtUtil = new JwtUtil(SECRET, 3_600_000, 0, new SimpleMeterRegistry());
+        objectMapper = JsonMapper.builder().build();
+
+        user = new User("Benchmark User", "benchmark@example.com", "unused");
+        Category category = new Category("Electronics", "Gadgets and devices", "electronics");
+        product = new Product("Wireless Headphones", "SKU-HEADPHONES-001", new BigDecimal("129.99"), 250);
+        product.setDescription("Over-ear wireless headphones with active noise cancellation");
+        product.setDiscountPrice(new BigDecimal("99.99"));
+        product.setBrand("Acme");
+        product.setImageUrl("https://cdn.example.com/products/headphones.jpg");
+        product.setWeight(new BigDecimal("0.35"));
+        product.setCategory(category);
+
+        cart = new Cart(user);
+        order = new Order(user, "ORD-20260101120000-ABCDEF12");
+        order.setTax(new BigDecimal("12.50"));
+        order.setShippingName("Benchmark User");
+        order.setShippingAddress("1 Main Street");
+        order.setShippingCity("Springfield");
+        order.setShippingState("IL");
+        order.setShippingPostalCode("62701");
+        order.setShippingCountry("US");
+        order.setShippingPhone("+1-555-0100");
+        for (int i = 0; i < items; i++) {
+            cart.addItem(new CartItem(product, 1 + i % 3));
+            order.addItem(new OrderItem(product, 1 + i % 3, new BigDecimal("99.99")));
+        }
+        order.calculateTotals();
+        orderItems = new ArrayList<>(order.getItems());
+
+        productResponse = productService.mapToResponse(product);
+        orderResponse = orderService.mapToResponse(order, orderItems);
+        token = jwtUtil.generateToken(user);
+    }
+
+    @Benchmark
+    public ProductResponse productMapToResponse() {
+        return productService.mapToResponse(product);
+    }
+
+    @Benchmark
+    public OrderResponse orderMapToResponse() {
+        return orderService.mapToResponse(order, orderItems);
+    }
+
+    @Benchmark
+    public BigDecimal cartSubtotal() {
+        return cart.getSubtotal();
+    }
+
+    @Benchmark
+    public BigDecimal orderCalculateTotals() {
+        order.calculateTotals();
+        return order.getTotalAmount();
+    }
+
+    @Benchmark
+    public String jwtGenerate() {
+        return jwtUtil.generateToken(user);
+    }
+
+    @Benchmark
+    public Object jwtValidate() {
+        return jwtUtil.parseToken(token).orElse(null);
+    }
+
+    @Benchmark
+    public String generateOrderNumber() {
+        return orderService.generateOrderNumber();
+    }
+
+    @Benchmark
+    public String serializeProductResponse() {
+        return objectMapper.writeValueAsString(productResponse);
+    }
+
+    @Benchmark
+    public String serializeOrderResponse() {
+        return objectMapper.writeValueAsString(orderResponse);
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.ecommerce.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wraps DataSource beans so every executed JDBC statement is timed (jdbc.statements) and attributed to the
+ * current request (RequestDbStats). Everything else, including unwrap() to the pool or driver, is delegated
+ * unchanged; Hikari's own pool metrics (hikaricp.connections.acquire etc.) keep working through unwrap().
+ */
+@Component
+@ConditionalOnProperty(name = "metrics.jdbc.enabled", havingValue = "true", matchIfMissing = true)
+public class JdbcMetricsPostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+    private volatile Timer statementTimer;
+
+    public JdbcMetricsPostProcessor(ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.meterRegistryProvider = meterRegistryProvider;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(Proxy.isProxyClass(bean.getClass())
+                && Proxy.getInvocationHandler(bean) instanceof Delegating)) {
+            // Keep close() visible so the pool is still shut down with the context
+            Class<?>[] types = dataSource instanceof AutoCloseable
+                    ? new Class<?>[]{DataSource.class, AutoCloseable.class}
+                    : new Class<?>[]{DataSource.class};
+            return Proxy.newProxyInstance(DataSource.class.getClassLoader(), types,
+                    new Delegating(dataSource, this::onDataSource));
+        }
+        return bean;
+    }
+
+    private Object onDataSource(Object result) {
+        return result instanceof Connection connection ? wrap(Connection.class, connection, this::onConnection) : result;
+    }
+
+    private Object onConnection(Object result) {
+        if (result instanceof CallableStatement statement) {
+            return wrap(CallableStatement.class, statement, null);
+        }
+        if (result instanceof PreparedStatement statement) {
+            return wrap(PreparedStatement.class, statement, null);
+        }
+        if (result instanceof Statement statement) {
+            return wrap(Statement.class, statement, null);
+        }
+        return result;
+    }
+
+    private <T> T wrap(Class<T> type, T target, ResultWrapper resultWrapper) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                new Delegating(target, resultWrapper)));
+    }
+
+    private void recordStatement(long elapsedNanos) {
+        RequestDbStats.record(elapsedNanos);
+        Timer timer = statementTimer;
+        if (timer == null) {
+            timer = Timer.builder("jdbc.statements")
+                    .description("Executed JDBC statements")
+                    .register(meterRegistryProvider.getObject());
+            statementTimer = timer;
+        }
+        timer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @FunctionalInterface
+    private interface ResultWrapper {
+        Object wrap(Object result);
+    }
+
+    // Delegates every call; statements time their execute* calls, connections and data sources wrap what they return
+    private final class Delegating implements InvocationHandler {
+
+        private final Object target;
+        private final ResultWrapper resultWrapper;
+
+        private Delegating(Object target, ResultWrapper resultWrapper) {
+            this.target = target;
+            this.resultWrapper = resultWrapper;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            // Identity semantics for the proxy itself, as pools and transaction managers compare connections
+            if ("equals".equals(method.getName()) && method.getParameterCount() == 1) {
+                return proxy == args[0];
+            }
+            if ("hashCode".equals(method.getName()) && method.getParameterCount() == 0) {
+                return System.identityHashCode(proxy);
+            }
+            boolean execute = target instanceof Statement && method.getName().startsWith("execute");
+            long start = execute ? System.nanoTime() : 0;
+            try {
+                Object result = method.invoke(target, args);
+                return resultWrapper == null ? result : resultWrapper.wrap(result);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            } finally {
+                if (execute) {
+                    recordStatement(System.nanoTime() - start);
+                }
+            }
+        }
+    }
+}
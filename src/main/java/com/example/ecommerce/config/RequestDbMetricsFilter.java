@@ -0,0 +1,85 @@
+package com.example.ecommerce.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request database usage: http.server.requests.db.statements (statements executed) and
+ * http.server.requests.db.time (time spent executing them), tagged like http.server.requests with the
+ * method and URI template. Outermost filter, so statements run by the security chain are included.
+ * Meters are cached per method and URI template, so recording does not go through the registry.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "metrics.jdbc.enabled", havingValue = "true", matchIfMissing = true)
+public class RequestDbMetricsFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, RequestMeters> meters = new ConcurrentHashMap<>();
+
+    public RequestDbMetricsFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        RequestDbStats stats = RequestDbStats.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestDbStats.stop();
+            // Known after dispatch; requests that never reached a handler share one tag
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+            String method = request.getMethod();
+            String key = method + " " + uri;
+
+            RequestMeters requestMeters = meters.get(key);
+            if (requestMeters == null) {
+                requestMeters = meters.computeIfAbsent(key, k -> new RequestMeters(method, uri));
+            }
+            requestMeters.statements.record(stats.getStatements());
+            requestMeters.time.record(stats.getNanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private final class RequestMeters {
+
+        private final DistributionSummary statements;
+        private final Timer time;
+
+        private RequestMeters(String method, String uri) {
+            this.statements = DistributionSummary.builder("http.server.requests.db.statements")
+                    .description("JDBC statements executed per request")
+                    .tag("method", method)
+                    .tag("uri", uri)
+                    .register(meterRegistry);
+            this.time = Timer.builder("http.server.requests.db.time")
+                    .description("Time spent executing JDBC statements per request")
+                    .tag("method", method)
+                    .tag("uri", uri)
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.ecommerce.config;
+
+/**
+ * JDBC statements executed and time spent in them by the current request.
+ * Started and reported by RequestDbMetricsFilter, fed by the metered DataSource; work handed to other threads
+ * during the request is not attributed to it.
+ */
+public final class RequestDbStats {
+
+    private static final ThreadLocal<RequestDbStats> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+    private long nanos;
+
+    private RequestDbStats() {
+    }
+
+    static RequestDbStats start() {
+        RequestDbStats stats = new RequestDbStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    static void stop() {
+        CURRENT.remove();
+    }
+
+    // Called for every executed statement; a no-op outside a request
+    static void record(long elapsedNanos) {
+        RequestDbStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.statements++;
+            stats.nanos += elapsedNanos;
+        }
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+}
@@ -1,6 +1,9 @@
 package com.example.ecommerce.config;
 
+import com.example.ecommerce.security.BCryptCostCalibrator;
 import com.example.ecommerce.security.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -10,6 +13,7 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 @Configuration
@@ -24,25 +28,36 @@ public class SecurityConfig {
     }
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http,
+                                                   @Value("${management.server.port:-1}") int managementPort) {
+
+        // Prometheus scrapes carry no JWT; allowed only on the management port, which is not publicly exposed
+        RequestMatcher prometheusScrape = request -> managementPort > 0
+                && request.getLocalPort() == managementPort
+                && "/actuator/prometheus".equals(request.getRequestURI());
 
         http
                 .csrf(csrf -> csrf.disable())
 
-                // Session management: IF_REQUIRED to support guest carts
+                // Stateless: users carry JWTs and guests a signed cart token, so any node can serve any request
                 .sessionManagement(session ->
-                        session.sessionCreationPolicy(SessionCreationPolicy.IF_REQUIRED)
+                        session.sessionCreationPolicy(SessionCreationPolicy.STATELESS)
                 )
 
                 .authorizeHttpRequests(auth -> auth
+                        // Async dispatches (SSE streams) were authorized on the original request
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers(
                                 "/api/users/register",
                                 "/api/users/login",
                                 "/api/products/**",
                                 "/api/categories/**",
                                 "/api/cart/**",
+                                "/api/payment/webhook",
                                 "/actuator/health"
                         ).permitAll()
+                        .requestMatchers(prometheusScrape).permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         .anyRequest().authenticated()
                 )
 
@@ -55,8 +70,14 @@ public class SecurityConfig {
         return http.build();
     }
 
+    // BCrypt cost from security.bcrypt.cost, or calibrated at startup when 0: the highest cost hashing within
+    // target-ms on this hardware, never below min-cost. Stored hashes with a lower cost are upgraded on login.
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${security.bcrypt.cost:0}") int cost,
+                                           @Value("${security.bcrypt.min-cost:10}") int minCost,
+                                           @Value("${security.bcrypt.max-cost:14}") int maxCost,
+                                           @Value("${security.bcrypt.target-ms:200}") long targetMs) {
+        int strength = cost > 0 ? cost : BCryptCostCalibrator.calibrate(minCost, maxCost, targetMs);
+        return new BCryptPasswordEncoder(strength);
     }
 }
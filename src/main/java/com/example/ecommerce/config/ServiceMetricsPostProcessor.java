@@ -0,0 +1,137 @@
+package com.example.ecommerce.config;
+
+import com.example.ecommerce.service.CartService;
+import com.example.ecommerce.service.CategoryService;
+import com.example.ecommerce.service.OrderService;
+import com.example.ecommerce.service.PaymentService;
+import com.example.ecommerce.service.ProductService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.AbstractAdvisingBeanPostProcessor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every public method of the core services as service.calls, tagged with service, method, outcome
+ * (success or error) and the exception's simple name. The advice is added in front of existing advisors
+ * (e.g. @Transactional), so the time includes the transaction and its commit.
+ * The registry is looked up on first call: post-processors are created before most beans. Timers are cached per
+ * method and exception type, so a call costs two map lookups rather than building and registering a meter.
+ */
+@Component
+public class ServiceMetricsPostProcessor extends AbstractAdvisingBeanPostProcessor {
+
+    private static final Set<Class<?>> TIMED_SERVICES = Set.of(
+            ProductService.class,
+            CartService.class,
+            OrderService.class,
+            PaymentService.class,
+            CategoryService.class
+    );
+
+    public ServiceMetricsPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.advisor = new DefaultPointcutAdvisor(new PublicServiceMethods(), new TimingInterceptor(meterRegistry));
+        setBeforeExistingAdvisors(true);
+        // Services are concrete classes without interfaces
+        setProxyTargetClass(true);
+    }
+
+    private static final class PublicServiceMethods extends StaticMethodMatcherPointcut {
+
+        PublicServiceMethods() {
+            setClassFilter(TIMED_SERVICES::contains);
+        }
+
+        @Override
+        public boolean matches(Method method, Class<?> targetClass) {
+            return Modifier.isPublic(method.getModifiers())
+                    && !Modifier.isStatic(method.getModifiers())
+                    && TIMED_SERVICES.contains(method.getDeclaringClass());
+        }
+    }
+
+    private static final class TimingInterceptor implements MethodInterceptor {
+
+        private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+        private final Map<Method, MethodTimers> timers = new ConcurrentHashMap<>();
+        private volatile MeterRegistry meterRegistry;
+
+        private TimingInterceptor(ObjectProvider<MeterRegistry> meterRegistryProvider) {
+            this.meterRegistryProvider = meterRegistryProvider;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            long start = System.nanoTime();
+            Throwable error = null;
+            try {
+                return invocation.proceed();
+            } catch (Throwable e) {
+                error = e;
+                throw e;
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                Method method = invocation.getMethod();
+                MethodTimers methodTimers = timers.get(method);
+                if (methodTimers == null) {
+                    methodTimers = timers.computeIfAbsent(method, MethodTimers::new);
+                }
+                methodTimers.forOutcome(error).record(elapsed, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private MeterRegistry registry() {
+            MeterRegistry registry = meterRegistry;
+            if (registry == null) {
+                registry = meterRegistryProvider.getObject();
+                meterRegistry = registry;
+            }
+            return registry;
+        }
+
+        // Success timer registered up front, error timers per exception type on first occurrence
+        private final class MethodTimers {
+
+            private final Method method;
+            private final Timer success;
+            private final Map<Class<?>, Timer> errors = new ConcurrentHashMap<>();
+
+            private MethodTimers(Method method) {
+                this.method = method;
+                this.success = register("success", "none");
+            }
+
+            private Timer forOutcome(Throwable error) {
+                if (error == null) {
+                    return success;
+                }
+                Timer timer = errors.get(error.getClass());
+                if (timer == null) {
+                    timer = errors.computeIfAbsent(error.getClass(), type -> register("error", type.getSimpleName()));
+                }
+                return timer;
+            }
+
+            private Timer register(String outcome, String exception) {
+                return Timer.builder("service.calls")
+                        .description("Calls to public service methods")
+                        .tag("service", method.getDeclaringClass().getSimpleName())
+                        .tag("method", method.getName())
+                        .tag("outcome", outcome)
+                        .tag("exception", exception)
+                        .register(registry());
+            }
+        }
+    }
+}
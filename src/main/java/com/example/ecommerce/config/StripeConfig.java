@@ -4,16 +4,28 @@ import com.stripe.Stripe;
 import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 
+// Not needed when the simulated gateway is active, so load tests run without a Stripe key
 @Configuration
+@Profile("!payment-sim")
 public class StripeConfig {
 
     @Value("${stripe.api-key}")
     private String apiKey;
 
+    // Socket-level limits; GuardedPaymentGateway adds an overall per-call timeout on top
+    @Value("${stripe.connect-timeout-ms:2000}")
+    private int connectTimeoutMs;
+
+    @Value("${stripe.read-timeout-ms:5000}")
+    private int readTimeoutMs;
+
     @PostConstruct
     public void init() {
         Stripe.apiKey = apiKey;
+        Stripe.setConnectTimeout(connectTimeoutMs);
+        Stripe.setReadTimeout(readTimeoutMs);
     }
 }
 
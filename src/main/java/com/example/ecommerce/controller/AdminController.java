@@ -1,10 +1,12 @@
 package com.example.ecommerce.controller;
 
+import com.example.ecommerce.dto.UpdateUserRoleRequest;
+import com.example.ecommerce.model.User;
+import com.example.ecommerce.service.UserService;
+import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -13,6 +15,12 @@ import java.util.Map;
 @RequestMapping("/api/admin")
 public class AdminController {
 
+    private final UserService userService;
+
+    public AdminController(UserService userService) {
+        this.userService = userService;
+    }
+
     @GetMapping("/dashboard")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<Map<String, String>> getDashboard() {
@@ -34,5 +42,23 @@ public class AdminController {
 
         return ResponseEntity.ok(stats);
     }
-}
 
+    // Change a user's role; the user's existing tokens are revoked and they must log in again
+    @PutMapping("/users/{userId}/role")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> changeUserRole(
+            @PathVariable Long userId,
+            @Valid @RequestBody UpdateUserRoleRequest request) {
+        try {
+            User user = userService.changeUserRole(userId, request.getRole());
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("userId", user.getId());
+            response.put("email", user.getEmail());
+            response.put("role", user.getRole().name());
+            return ResponseEntity.ok(response);
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+}
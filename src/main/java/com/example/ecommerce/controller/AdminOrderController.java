@@ -1,8 +1,13 @@
 package com.example.ecommerce.controller;
 
+import com.example.ecommerce.dto.BulkOrderStatusRequest;
+import com.example.ecommerce.dto.BulkOrderStatusResponse;
 import com.example.ecommerce.dto.OrderResponse;
+import com.example.ecommerce.dto.OrderSearchCriteria;
+import com.example.ecommerce.dto.OrderSearchResponse;
 import com.example.ecommerce.model.OrderStatus;
 import com.example.ecommerce.service.OrderService;
+import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -45,6 +50,18 @@ public class AdminOrderController {
         return ResponseEntity.ok(orders);
     }
 
+    // Search orders by any combination of date range, statuses, customer email, amount range,
+    // payment status and shipping country; page through results with the returned nextCursor
+    @GetMapping("/search")
+    public ResponseEntity<?> searchOrders(@ModelAttribute OrderSearchCriteria criteria) {
+        try {
+            OrderSearchResponse result = orderService.searchOrders(criteria);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     // Get order by ID
     @GetMapping("/{orderId}")
     public ResponseEntity<OrderResponse> getOrderById(@PathVariable Long orderId) {
@@ -86,6 +103,22 @@ public class AdminOrderController {
         }
     }
 
+    // Bulk update order status (e.g. move a batch of CONFIRMED orders to SHIPPED)
+    @PostMapping("/bulk-status")
+    public ResponseEntity<BulkOrderStatusResponse> bulkUpdateOrderStatus(
+            @Valid @RequestBody BulkOrderStatusRequest request) {
+
+        try {
+            OrderStatus status = OrderStatus.valueOf(request.getStatus().toUpperCase());
+
+            BulkOrderStatusResponse response = orderService.bulkUpdateOrderStatus(
+                    request.getOrderIds(), status, request.getReason());
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     // Cancel order
     @PostMapping("/{orderId}/cancel")
     public ResponseEntity<OrderResponse> cancelOrder(
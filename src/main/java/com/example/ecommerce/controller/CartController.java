@@ -4,9 +4,15 @@ import com.example.ecommerce.dto.AddToCartRequest;
 import com.example.ecommerce.dto.CartResponse;
 import com.example.ecommerce.dto.UpdateCartItemRequest;
 import com.example.ecommerce.service.CartService;
-import jakarta.servlet.http.HttpSession;
+import com.example.ecommerce.security.CartTokenService;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseCookie;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -17,14 +23,22 @@ import org.springframework.web.bind.annotation.*;
 public class CartController {
 
     private final CartService cartService;
+    private final CartTokenService cartTokenService;
 
-    public CartController(CartService cartService) {
+    @Value("${cart.token.cookie-max-age-days:7}")
+    private long cookieMaxAgeDays;
+
+    @Value("${cart.token.cookie-secure:true}")
+    private boolean cookieSecure;
+
+    public CartController(CartService cartService, CartTokenService cartTokenService) {
         this.cartService = cartService;
+        this.cartTokenService = cartTokenService;
     }
 
     // Get current user's cart or create if doesn't exist
     @GetMapping
-    public ResponseEntity<CartResponse> getCart(HttpSession session) {
+    public ResponseEntity<CartResponse> getCart(HttpServletRequest request, HttpServletResponse response) {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
 
         if (auth != null && auth.isAuthenticated() && !auth.getPrincipal().equals("anonymousUser")) {
@@ -33,9 +47,9 @@ public class CartController {
             CartResponse cart = cartService.getOrCreateUserCart(email);
             return ResponseEntity.ok(cart);
         } else {
-            // Guest user
-            String sessionId = session.getId();
-            CartResponse cart = cartService.getOrCreateGuestCart(sessionId);
+            // Guest user, identified by the signed cart token
+            String guestId = resolveGuestId(request, response);
+            CartResponse cart = cartService.getOrCreateGuestCart(guestId);
             return ResponseEntity.ok(cart);
         }
     }
@@ -44,7 +58,8 @@ public class CartController {
     @PostMapping("/items")
     public ResponseEntity<CartResponse> addToCart(
             @Valid @RequestBody AddToCartRequest request,
-            HttpSession session) {
+            HttpServletRequest httpRequest,
+            HttpServletResponse httpResponse) {
 
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
 
@@ -55,9 +70,9 @@ public class CartController {
                 String email = auth.getName();
                 cart = cartService.addToUserCart(email, request);
             } else {
-                // Guest user
-                String sessionId = session.getId();
-                cart = cartService.addToGuestCart(sessionId, request);
+                // Guest user, identified by the signed cart token
+                String guestId = resolveGuestId(httpRequest, httpResponse);
+                cart = cartService.addToGuestCart(guestId, request);
             }
             return ResponseEntity.ok(cart);
         } catch (RuntimeException e) {
@@ -105,11 +120,12 @@ public class CartController {
         }
     }
 
-    // Merge guest cart to user cart (called after login)
+    // Merge guest cart to user cart (called after login with the guest's cart token)
     @PostMapping("/merge")
     public ResponseEntity<CartResponse> mergeCart(
-            @RequestParam String sessionId,
-            Authentication authentication) {
+            Authentication authentication,
+            HttpServletRequest request,
+            HttpServletResponse response) {
 
         if (authentication == null || !authentication.isAuthenticated()) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
@@ -117,11 +133,54 @@ public class CartController {
 
         try {
             String email = authentication.getName();
-            CartResponse cart = cartService.mergeGuestCartToUser(sessionId, email);
+            String guestId = guestIdFromToken(request);
+            if (guestId == null) {
+                return ResponseEntity.ok(cartService.getOrCreateUserCart(email));
+            }
+
+            CartResponse cart = cartService.mergeGuestCartToUser(guestId, email);
+            // The guest cart is gone; drop its token
+            response.addHeader(HttpHeaders.SET_COOKIE, cartCookie("", 0).toString());
             return ResponseEntity.ok(cart);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().build();
         }
     }
-}
 
+    // Guest id from the request's cart token, or a new token returned in the response (cookie and header)
+    private String resolveGuestId(HttpServletRequest request, HttpServletResponse response) {
+        String guestId = guestIdFromToken(request);
+        if (guestId != null) {
+            return guestId;
+        }
+
+        String token = cartTokenService.issue();
+        response.setHeader(CartTokenService.HEADER, token);
+        response.addHeader(HttpHeaders.SET_COOKIE, cartCookie(token, cookieMaxAgeDays * 24 * 60 * 60).toString());
+        return cartTokenService.verify(token).orElseThrow();
+    }
+
+    // Header first (API clients), then cookie (browsers); tokens that fail verification are ignored
+    private String guestIdFromToken(HttpServletRequest request) {
+        String token = request.getHeader(CartTokenService.HEADER);
+        if (token == null && request.getCookies() != null) {
+            for (Cookie cookie : request.getCookies()) {
+                if (CartTokenService.COOKIE_NAME.equals(cookie.getName())) {
+                    token = cookie.getValue();
+                    break;
+                }
+            }
+        }
+        return cartTokenService.verify(token).orElse(null);
+    }
+
+    private ResponseCookie cartCookie(String value, long maxAgeSeconds) {
+        return ResponseCookie.from(CartTokenService.COOKIE_NAME, value)
+                .httpOnly(true)
+                .secure(cookieSecure)
+                .sameSite("Lax")
+                .path("/api/cart")
+                .maxAge(maxAgeSeconds)
+                .build();
+    }
+}
@@ -2,16 +2,22 @@ package com.example.ecommerce.controller;
 
 import com.example.ecommerce.dto.CheckoutRequest;
 import com.example.ecommerce.dto.OrderResponse;
+import com.example.ecommerce.dto.OrderSummaryResponse;
+import com.example.ecommerce.service.CheckoutRejectedException;
+import com.example.ecommerce.service.IdempotencyService;
 import com.example.ecommerce.service.OrderService;
+import com.example.ecommerce.service.OrderStatusStreamService;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -21,28 +27,39 @@ import java.util.Map;
 public class OrderController {
 
     private final OrderService orderService;
+    private final IdempotencyService idempotencyService;
+    private final OrderStatusStreamService orderStatusStreamService;
 
-    public OrderController(OrderService orderService) {
+    public OrderController(OrderService orderService,
+                           IdempotencyService idempotencyService,
+                           OrderStatusStreamService orderStatusStreamService) {
         this.orderService = orderService;
+        this.idempotencyService = idempotencyService;
+        this.orderStatusStreamService = orderStatusStreamService;
     }
 
-    // Checkout - Create order from cart
+    // Checkout - Create order from cart; retries with the same Idempotency-Key replay the first response
     @PostMapping("/checkout")
-    public ResponseEntity<OrderResponse> checkout(
+    public ResponseEntity<?> checkout(
             @Valid @RequestBody CheckoutRequest request,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             Authentication authentication) {
 
         if (authentication == null || !authentication.isAuthenticated()) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
 
-        try {
-            String email = authentication.getName();
-            OrderResponse order = orderService.createOrderFromCart(email, request);
-            return ResponseEntity.status(HttpStatus.CREATED).body(order);
-        } catch (RuntimeException e) {
-            return ResponseEntity.badRequest().build();
-        }
+        String email = authentication.getName();
+        // Only business rejections become a 4xx, which is stored and replayed for the key; other failures
+        // propagate as 5xx, which releases the key so the client's retry runs the checkout again
+        return idempotencyService.execute(email, idempotencyKey, "checkout", request, () -> {
+            try {
+                OrderResponse order = orderService.createOrderFromCart(email, request);
+                return ResponseEntity.status(HttpStatus.CREATED).body(order);
+            } catch (CheckoutRejectedException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+            }
+        });
     }
 
     // Get user's orders
@@ -61,6 +78,87 @@ public class OrderController {
         return ResponseEntity.ok(orders);
     }
 
+    // Get user's order history as summaries (number, status, total, item count, thumbnail)
+    @GetMapping("/my-orders/summary")
+    public ResponseEntity<Page<OrderSummaryResponse>> getMyOrderSummaries(
+            Authentication authentication,
+            @PageableDefault(size = 10, sort = "createdAt", direction = Sort.Direction.DESC)
+            Pageable pageable) {
+
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        String email = authentication.getName();
+        Page<OrderSummaryResponse> orders = orderService.getUserOrderSummaries(email, pageable);
+        return ResponseEntity.ok(orders);
+    }
+
+    // Get user's archived orders (finished orders past the archive retention window)
+    @GetMapping("/my-orders/archived")
+    public ResponseEntity<Page<OrderResponse>> getMyArchivedOrders(
+            Authentication authentication,
+            @PageableDefault(size = 10, sort = "createdAt", direction = Sort.Direction.DESC)
+            Pageable pageable) {
+
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        String email = authentication.getName();
+        Page<OrderResponse> orders = orderService.getUserArchivedOrders(email, pageable);
+        return ResponseEntity.ok(orders);
+    }
+
+    // Stream status changes for all of the user's orders (Server-Sent Events)
+    @GetMapping(value = "/my-orders/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamMyOrderEvents(Authentication authentication) {
+
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        try {
+            return ResponseEntity.ok(orderStatusStreamService.subscribeToUser(authentication.getName()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    // Stream status changes for one order (Server-Sent Events); replaces polling GET /{orderId}
+    @GetMapping(value = "/{orderId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamOrderEvents(
+            @PathVariable Long orderId,
+            Authentication authentication) {
+
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        OrderResponse order;
+        try {
+            order = orderService.getOrderById(orderId);
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+
+        // Verify order belongs to user
+        if (!order.getUserEmail().equals(authentication.getName())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        try {
+            return ResponseEntity.ok(orderStatusStreamService.subscribeToOrder(order));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        } catch (RuntimeException e) {
+            // The snapshot is reloaded after subscribing; the order can be gone by then
+            return ResponseEntity.notFound().build();
+        }
+    }
+
     // Get specific order by ID
     @GetMapping("/{orderId}")
     public ResponseEntity<OrderResponse> getOrderById(
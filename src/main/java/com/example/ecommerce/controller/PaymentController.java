@@ -4,13 +4,21 @@ import com.example.ecommerce.dto.PaymentConfirmationRequest;
 import com.example.ecommerce.dto.PaymentIntentRequest;
 import com.example.ecommerce.dto.PaymentIntentResponse;
 import com.example.ecommerce.model.Order;
+import com.example.ecommerce.service.IdempotencyService;
+import com.example.ecommerce.service.PaymentGatewayException;
+import com.example.ecommerce.service.PaymentGatewayIntent;
+import com.example.ecommerce.service.PaymentGatewayUnavailableException;
 import com.example.ecommerce.service.PaymentService;
+import com.example.ecommerce.service.PaymentWebhookService;
+import com.stripe.exception.SignatureVerificationException;
 import com.stripe.exception.StripeException;
-import com.stripe.model.PaymentIntent;
 import jakarta.validation.Valid;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
+import org.springframework.transaction.TransactionException;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
@@ -21,18 +29,26 @@ import java.util.Map;
 public class PaymentController {
 
     private final PaymentService paymentService;
+    private final IdempotencyService idempotencyService;
+    private final PaymentWebhookService paymentWebhookService;
 
-    public PaymentController(PaymentService paymentService) {
+    public PaymentController(PaymentService paymentService,
+                             IdempotencyService idempotencyService,
+                             PaymentWebhookService paymentWebhookService) {
         this.paymentService = paymentService;
+        this.idempotencyService = idempotencyService;
+        this.paymentWebhookService = paymentWebhookService;
     }
 
     /**
      * Create a payment intent for an order
      * POST /api/payment/create-intent
+     * Retries carrying the same Idempotency-Key header get the first response instead of a new intent
      */
     @PostMapping("/create-intent")
     public ResponseEntity<?> createPaymentIntent(
             @Valid @RequestBody PaymentIntentRequest request,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             Authentication authentication) {
 
         if (authentication == null || !authentication.isAuthenticated()) {
@@ -40,22 +56,27 @@ public class PaymentController {
                     .body(Map.of("error", "User not authenticated"));
         }
 
-        try {
-            String email = authentication.getName();
-            PaymentIntentResponse response = paymentService.createPaymentIntent(
-                    request.getOrderId(),
-                    email
-            );
-            return ResponseEntity.ok(response);
-
-        } catch (StripeException e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("error", "Stripe error: " + e.getMessage()));
-
-        } catch (RuntimeException e) {
-            return ResponseEntity.badRequest()
-                    .body(Map.of("error", e.getMessage()));
-        }
+        String email = authentication.getName();
+        return idempotencyService.execute(email, idempotencyKey, "create-intent", request, () -> {
+            try {
+                PaymentIntentResponse response = paymentService.createPaymentIntent(
+                        request.getOrderId(),
+                        email
+                );
+                return ResponseEntity.ok(response);
+
+            } catch (PaymentGatewayUnavailableException e) {
+                return gatewayUnavailable(e);
+
+            } catch (PaymentGatewayException e) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(Map.of("error", e.getMessage()));
+
+            } catch (RuntimeException e) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", e.getMessage()));
+            }
+        });
     }
 
     /**
@@ -89,9 +110,12 @@ public class PaymentController {
 
             return ResponseEntity.ok(response);
 
-        } catch (StripeException e) {
+        } catch (PaymentGatewayUnavailableException e) {
+            return gatewayUnavailable(e);
+
+        } catch (PaymentGatewayException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("error", "Stripe error: " + e.getMessage()));
+                    .body(Map.of("error", e.getMessage()));
 
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest()
@@ -99,6 +123,40 @@ public class PaymentController {
         }
     }
 
+    /**
+     * Receive Stripe webhook events
+     * POST /api/payment/webhook
+     * Events are verified and enqueued, then acknowledged; orders are updated by a background worker
+     */
+    @PostMapping("/webhook")
+    public ResponseEntity<?> handleWebhook(
+            @RequestBody String payload,
+            @RequestHeader(value = "Stripe-Signature", required = false) String signature) {
+
+        if (signature == null) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Missing Stripe-Signature header"));
+        }
+
+        try {
+            paymentWebhookService.receive(payload, signature);
+            return ResponseEntity.ok(Map.of("received", true));
+
+        } catch (SignatureVerificationException e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Invalid signature"));
+
+        } catch (StripeException e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Unreadable event: " + e.getMessage()));
+
+        } catch (IllegalStateException | DataAccessException | TransactionException e) {
+            // Not stored: a non-2xx response makes Stripe redeliver the event later
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "Unable to accept events right now"));
+        }
+    }
+
     /**
      * Get payment status
      * GET /api/payment/status/{paymentIntentId}
@@ -120,9 +178,12 @@ public class PaymentController {
                     "status", status
             ));
 
-        } catch (StripeException e) {
+        } catch (PaymentGatewayUnavailableException e) {
+            return gatewayUnavailable(e);
+
+        } catch (PaymentGatewayException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("error", "Stripe error: " + e.getMessage()));
+                    .body(Map.of("error", e.getMessage()));
         }
     }
 
@@ -141,16 +202,19 @@ public class PaymentController {
         }
 
         try {
-            PaymentIntent cancelledIntent = paymentService.cancelPaymentIntent(paymentIntentId);
+            PaymentGatewayIntent cancelledIntent = paymentService.cancelPaymentIntent(paymentIntentId);
             return ResponseEntity.ok(Map.of(
                     "message", "Payment cancelled successfully",
                     "paymentIntentId", cancelledIntent.getId(),
                     "status", cancelledIntent.getStatus()
             ));
 
-        } catch (StripeException e) {
+        } catch (PaymentGatewayUnavailableException e) {
+            return gatewayUnavailable(e);
+
+        } catch (PaymentGatewayException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("error", "Stripe error: " + e.getMessage()));
+                    .body(Map.of("error", e.getMessage()));
         }
     }
 
@@ -171,5 +235,11 @@ public class PaymentController {
                 "note", "Use test card 4242 4242 4242 4242 for testing"
         ));
     }
-}
 
+    // The gateway is open-circuited, saturated or timed out: tell the client when to come back
+    private ResponseEntity<?> gatewayUnavailable(PaymentGatewayUnavailableException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(Map.of("error", e.getMessage()));
+    }
+}
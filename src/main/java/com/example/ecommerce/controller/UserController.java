@@ -2,13 +2,17 @@ package com.example.ecommerce.controller;
 
 import com.example.ecommerce.dto.LoginResponse;
 import com.example.ecommerce.model.User;
+import com.example.ecommerce.security.PasswordHashingUnavailableException;
 import com.example.ecommerce.service.UserService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import com.example.ecommerce.dto.UserRegistrationRequest;
 import com.example.ecommerce.dto.LoginRequest;
 
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/users")
 public class UserController {
@@ -20,20 +24,23 @@ public class UserController {
     }
 
     @PostMapping("/register")
-    public ResponseEntity<User> registerUser(@RequestBody UserRegistrationRequest request) {
-
-        User savedUser = userService.registerUser(request);
-        return new ResponseEntity<>(savedUser, HttpStatus.CREATED);
+    public ResponseEntity<?> registerUser(@RequestBody UserRegistrationRequest request) {
+        try {
+            User savedUser = userService.registerUser(request);
+            return new ResponseEntity<>(savedUser, HttpStatus.CREATED);
+        } catch (PasswordHashingUnavailableException e) {
+            return hashingUnavailable(e);
+        }
     }
 
     @PostMapping("/login")
-    public ResponseEntity<LoginResponse> login(@RequestBody LoginRequest request) {
+    public ResponseEntity<?> login(@RequestBody LoginRequest request) {
         try {
             // Validate credentials
             User user = userService.loginUser(request);
 
             // Generate JWT token
-            String token = userService.generateTokenForUser(user.getEmail());
+            String token = userService.generateTokenForUser(user);
 
             // Create response with token and user info (no password)
             LoginResponse response = new LoginResponse(
@@ -44,9 +51,18 @@ public class UserController {
             );
 
             return ResponseEntity.ok(response);
+        } catch (PasswordHashingUnavailableException e) {
+            return hashingUnavailable(e);
         } catch (RuntimeException e) {
             // Return 401 Unauthorized for authentication failures
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
     }
+
+    // Password hashing is saturated; tell the client when to retry
+    private ResponseEntity<?> hashingUnavailable(PasswordHashingUnavailableException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(Map.of("error", e.getMessage()));
+    }
 }
@@ -0,0 +1,50 @@
+package com.example.ecommerce.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BulkOrderStatusRequest {
+
+    @NotEmpty(message = "At least one order ID is required")
+    @Size(max = 1000, message = "Cannot update more than 1000 orders at once")
+    private List<Long> orderIds = new ArrayList<>();
+
+    @NotBlank(message = "Status is required")
+    private String status;
+
+    @Size(max = 500, message = "Reason cannot exceed 500 characters")
+    private String reason;
+
+    // Constructors
+    public BulkOrderStatusRequest() {
+    }
+
+    // Getters and Setters
+    public List<Long> getOrderIds() {
+        return orderIds;
+    }
+
+    public void setOrderIds(List<Long> orderIds) {
+        this.orderIds = orderIds;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public void setReason(String reason) {
+        this.reason = reason;
+    }
+}
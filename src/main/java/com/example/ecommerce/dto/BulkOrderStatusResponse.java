@@ -0,0 +1,57 @@
+package com.example.ecommerce.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BulkOrderStatusResponse {
+
+    private String targetStatus;
+    private Integer requestedCount;
+    private Integer updatedCount;
+    private List<BulkOrderStatusResult> results = new ArrayList<>();
+
+    public BulkOrderStatusResponse() {
+    }
+
+    public BulkOrderStatusResponse(String targetStatus, List<BulkOrderStatusResult> results) {
+        this.targetStatus = targetStatus;
+        this.results = results;
+        this.requestedCount = results.size();
+        this.updatedCount = (int) results.stream()
+                .filter(result -> BulkOrderStatusResult.UPDATED.equals(result.getOutcome()))
+                .count();
+    }
+
+    // Getters and Setters
+    public String getTargetStatus() {
+        return targetStatus;
+    }
+
+    public void setTargetStatus(String targetStatus) {
+        this.targetStatus = targetStatus;
+    }
+
+    public Integer getRequestedCount() {
+        return requestedCount;
+    }
+
+    public void setRequestedCount(Integer requestedCount) {
+        this.requestedCount = requestedCount;
+    }
+
+    public Integer getUpdatedCount() {
+        return updatedCount;
+    }
+
+    public void setUpdatedCount(Integer updatedCount) {
+        this.updatedCount = updatedCount;
+    }
+
+    public List<BulkOrderStatusResult> getResults() {
+        return results;
+    }
+
+    public void setResults(List<BulkOrderStatusResult> results) {
+        this.results = results;
+    }
+}
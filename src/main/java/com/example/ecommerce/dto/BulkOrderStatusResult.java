@@ -0,0 +1,46 @@
+package com.example.ecommerce.dto;
+
+public class BulkOrderStatusResult {
+
+    public static final String UPDATED = "UPDATED";
+    public static final String NOT_FOUND = "NOT_FOUND";
+    public static final String INVALID_TRANSITION = "INVALID_TRANSITION";
+
+    private Long orderId;
+    private String outcome;
+    private String currentStatus;
+
+    public BulkOrderStatusResult() {
+    }
+
+    public BulkOrderStatusResult(Long orderId, String outcome, String currentStatus) {
+        this.orderId = orderId;
+        this.outcome = outcome;
+        this.currentStatus = currentStatus;
+    }
+
+    // Getters and Setters
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(Long orderId) {
+        this.orderId = orderId;
+    }
+
+    public String getOutcome() {
+        return outcome;
+    }
+
+    public void setOutcome(String outcome) {
+        this.outcome = outcome;
+    }
+
+    public String getCurrentStatus() {
+        return currentStatus;
+    }
+
+    public void setCurrentStatus(String currentStatus) {
+        this.currentStatus = currentStatus;
+    }
+}
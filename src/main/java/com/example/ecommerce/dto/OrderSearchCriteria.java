@@ -0,0 +1,120 @@
+package com.example.ecommerce.dto;
+
+import com.example.ecommerce.model.OrderStatus;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Admin order search filters, bound from query parameters; every filter is optional
+public class OrderSearchCriteria {
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime createdFrom;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime createdTo;
+
+    private List<OrderStatus> statuses;
+
+    private String userEmail;
+
+    private BigDecimal minTotal;
+
+    private BigDecimal maxTotal;
+
+    private String paymentStatus;
+
+    private String shippingCountry;
+
+    // Opaque cursor returned as nextCursor by the previous page
+    private String cursor;
+
+    private Integer size;
+
+    // Constructors
+    public OrderSearchCriteria() {
+    }
+
+    // Getters and Setters
+    public LocalDateTime getCreatedFrom() {
+        return createdFrom;
+    }
+
+    public void setCreatedFrom(LocalDateTime createdFrom) {
+        this.createdFrom = createdFrom;
+    }
+
+    public LocalDateTime getCreatedTo() {
+        return createdTo;
+    }
+
+    public void setCreatedTo(LocalDateTime createdTo) {
+        this.createdTo = createdTo;
+    }
+
+    public List<OrderStatus> getStatuses() {
+        return statuses;
+    }
+
+    public void setStatuses(List<OrderStatus> statuses) {
+        this.statuses = statuses;
+    }
+
+    public String getUserEmail() {
+        return userEmail;
+    }
+
+    public void setUserEmail(String userEmail) {
+        this.userEmail = userEmail;
+    }
+
+    public BigDecimal getMinTotal() {
+        return minTotal;
+    }
+
+    public void setMinTotal(BigDecimal minTotal) {
+        this.minTotal = minTotal;
+    }
+
+    public BigDecimal getMaxTotal() {
+        return maxTotal;
+    }
+
+    public void setMaxTotal(BigDecimal maxTotal) {
+        this.maxTotal = maxTotal;
+    }
+
+    public String getPaymentStatus() {
+        return paymentStatus;
+    }
+
+    public void setPaymentStatus(String paymentStatus) {
+        this.paymentStatus = paymentStatus;
+    }
+
+    public String getShippingCountry() {
+        return shippingCountry;
+    }
+
+    public void setShippingCountry(String shippingCountry) {
+        this.shippingCountry = shippingCountry;
+    }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
+    public Integer getSize() {
+        return size;
+    }
+
+    public void setSize(Integer size) {
+        this.size = size;
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.ecommerce.dto;
+
+import java.util.List;
+
+public class OrderSearchResponse {
+
+    private List<OrderResponse> orders;
+    private String nextCursor;
+    private boolean hasMore;
+
+    public OrderSearchResponse() {
+    }
+
+    public OrderSearchResponse(List<OrderResponse> orders, String nextCursor) {
+        this.orders = orders;
+        this.nextCursor = nextCursor;
+        this.hasMore = nextCursor != null;
+    }
+
+    // Getters and Setters
+    public List<OrderResponse> getOrders() {
+        return orders;
+    }
+
+    public void setOrders(List<OrderResponse> orders) {
+        this.orders = orders;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
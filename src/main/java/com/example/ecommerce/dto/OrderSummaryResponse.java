@@ -0,0 +1,100 @@
+package com.example.ecommerce.dto;
+
+import com.example.ecommerce.model.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public class OrderSummaryResponse {
+
+    private Long id;
+    private String orderNumber;
+    private String status;
+    private String paymentStatus;
+    private BigDecimal totalAmount;
+    private Long itemCount;
+    private String thumbnailUrl;
+    private LocalDateTime createdAt;
+
+    public OrderSummaryResponse() {
+    }
+
+    // Used by the JPQL constructor expression in OrderRepository
+    public OrderSummaryResponse(Long id, String orderNumber, OrderStatus status, String paymentStatus,
+                                BigDecimal totalAmount, Long itemCount, String thumbnailUrl,
+                                LocalDateTime createdAt) {
+        this.id = id;
+        this.orderNumber = orderNumber;
+        this.status = status.name();
+        this.paymentStatus = paymentStatus;
+        this.totalAmount = totalAmount;
+        this.itemCount = itemCount;
+        this.thumbnailUrl = thumbnailUrl;
+        this.createdAt = createdAt;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getOrderNumber() {
+        return orderNumber;
+    }
+
+    public void setOrderNumber(String orderNumber) {
+        this.orderNumber = orderNumber;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getPaymentStatus() {
+        return paymentStatus;
+    }
+
+    public void setPaymentStatus(String paymentStatus) {
+        this.paymentStatus = paymentStatus;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public void setTotalAmount(BigDecimal totalAmount) {
+        this.totalAmount = totalAmount;
+    }
+
+    public Long getItemCount() {
+        return itemCount;
+    }
+
+    public void setItemCount(Long itemCount) {
+        this.itemCount = itemCount;
+    }
+
+    public String getThumbnailUrl() {
+        return thumbnailUrl;
+    }
+
+    public void setThumbnailUrl(String thumbnailUrl) {
+        this.thumbnailUrl = thumbnailUrl;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
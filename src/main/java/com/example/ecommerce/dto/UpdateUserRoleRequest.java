@@ -0,0 +1,19 @@
+package com.example.ecommerce.dto;
+
+import com.example.ecommerce.model.Role;
+import jakarta.validation.constraints.NotNull;
+
+public class UpdateUserRoleRequest {
+
+    @NotNull
+    private Role role;
+
+    // getters & setters
+    public Role getRole() {
+        return role;
+    }
+
+    public void setRole(Role role) {
+        this.role = role;
+    }
+}
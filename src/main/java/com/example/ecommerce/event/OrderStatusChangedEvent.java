@@ -0,0 +1,56 @@
+package com.example.ecommerce.event;
+
+import com.example.ecommerce.model.Order;
+
+import java.time.LocalDateTime;
+
+// Published in-process whenever an order's status or payment status changes; delivered to listeners after commit
+public class OrderStatusChangedEvent {
+
+    private final Long orderId;
+    private final String orderNumber;
+    private final Long userId;
+    private final String status;
+    private final String paymentStatus;
+    private final LocalDateTime occurredAt;
+
+    public OrderStatusChangedEvent(Long orderId, String orderNumber, Long userId,
+                                   String status, String paymentStatus) {
+        this.orderId = orderId;
+        this.orderNumber = orderNumber;
+        this.userId = userId;
+        this.status = status;
+        this.paymentStatus = paymentStatus;
+        this.occurredAt = LocalDateTime.now();
+    }
+
+    public static OrderStatusChangedEvent from(Order order) {
+        return new OrderStatusChangedEvent(order.getId(), order.getOrderNumber(), order.getUser().getId(),
+                order.getStatus().name(), order.getPaymentStatus());
+    }
+
+    // Getters
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public String getOrderNumber() {
+        return orderNumber;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public String getPaymentStatus() {
+        return paymentStatus;
+    }
+
+    public LocalDateTime getOccurredAt() {
+        return occurredAt;
+    }
+}
@@ -19,7 +19,7 @@ public class Cart {
     @JoinColumn(name = "user_id", unique = true)
     private User user;
 
-    // For guest users (session-based)
+    // For guest users: guest id from the signed cart token (see CartTokenService)
     @Column(name = "session_id", unique = true)
     private String sessionId;
 
@@ -0,0 +1,6 @@
+package com.example.ecommerce.model;
+
+public enum IdempotencyStatus {
+    IN_PROGRESS,
+    COMPLETED
+}
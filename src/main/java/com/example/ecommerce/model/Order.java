@@ -7,7 +7,16 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        // Admin search: keyset pagination runs on (created_at, id) under each equality filter
+        @Index(name = "idx_orders_created_id", columnList = "created_at, id"),
+        @Index(name = "idx_orders_status_created_id", columnList = "status, created_at, id"),
+        @Index(name = "idx_orders_user_created_id", columnList = "user_id, created_at, id"),
+        @Index(name = "idx_orders_payment_status_created", columnList = "payment_status, created_at"),
+        @Index(name = "idx_orders_shipping_country_created", columnList = "shipping_country, created_at"),
+        // Payment webhooks locate orders by their payment intent
+        @Index(name = "idx_orders_transaction_id", columnList = "transaction_id")
+})
 public class Order {
 
     @Id
@@ -1,5 +1,8 @@
 package com.example.ecommerce.model;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 public enum OrderStatus {
     PENDING,        // Order created, awaiting payment confirmation
     CONFIRMED,      // Payment confirmed, processing order
@@ -7,6 +10,23 @@ public enum OrderStatus {
     SHIPPED,        // Order shipped to customer
     DELIVERED,      // Order delivered successfully
     CANCELLED,      // Order cancelled by user or admin
-    REFUNDED        // Order refunded
-}
+    REFUNDED;       // Order refunded
 
+    // Statuses an order may be in for a guarded transition to this status
+    public Set<OrderStatus> allowedPreviousStatuses() {
+        return switch (this) {
+            case PENDING -> EnumSet.noneOf(OrderStatus.class);
+            case CONFIRMED -> EnumSet.of(PENDING);
+            case PROCESSING -> EnumSet.of(CONFIRMED);
+            case SHIPPED -> EnumSet.of(CONFIRMED, PROCESSING);
+            case DELIVERED -> EnumSet.of(SHIPPED);
+            case CANCELLED -> EnumSet.of(PENDING, CONFIRMED);
+            case REFUNDED -> EnumSet.of(CONFIRMED, PROCESSING, SHIPPED, DELIVERED);
+        };
+    }
+
+    // Whether moving into this status puts the ordered quantities back into stock
+    public boolean restoresStock() {
+        return this == CANCELLED || this == REFUNDED;
+    }
+}
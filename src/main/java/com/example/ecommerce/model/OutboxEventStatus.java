@@ -0,0 +1,7 @@
+package com.example.ecommerce.model;
+
+public enum OutboxEventStatus {
+    PENDING,        // Waiting to be dispatched (or retried)
+    DISPATCHED,     // All handlers completed successfully
+    DEAD            // Gave up after the maximum number of attempts
+}
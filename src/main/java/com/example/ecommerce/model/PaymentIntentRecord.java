@@ -0,0 +1,88 @@
+package com.example.ecommerce.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Local copy of a payment intent created for an order, so repeated payment requests can reuse it without a gateway call
+@Entity
+@Table(name = "payment_intents", indexes = {
+        @Index(name = "idx_payment_intents_order_id", columnList = "order_id")
+})
+public class PaymentIntentRecord {
+
+    // Gateway's intent id
+    @Id
+    private String id;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Column(name = "client_secret", nullable = false)
+    private String clientSecret;
+
+    // Amount in the smallest currency unit
+    @Column(nullable = false)
+    private Long amount;
+
+    @Column(nullable = false, length = 3)
+    private String currency;
+
+    // Status when last seen by this service
+    @Column(nullable = false)
+    private String status;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // JPA requires no-arg constructor
+    protected PaymentIntentRecord() {
+    }
+
+    public PaymentIntentRecord(String id, Long orderId, String clientSecret, Long amount, String currency,
+                               String status) {
+        this.id = id;
+        this.orderId = orderId;
+        this.clientSecret = clientSecret;
+        this.amount = amount;
+        this.currency = currency;
+        this.status = status;
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = this.createdAt;
+    }
+
+    // Getters
+    public String getId() {
+        return id;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public String getClientSecret() {
+        return clientSecret;
+    }
+
+    public Long getAmount() {
+        return amount;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+}
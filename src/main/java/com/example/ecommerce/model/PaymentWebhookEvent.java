@@ -0,0 +1,80 @@
+package com.example.ecommerce.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Payment provider webhook event, stored on receipt and applied to orders by PaymentWebhookService
+@Entity
+@Table(name = "payment_webhook_events", indexes = {
+        @Index(name = "idx_payment_webhook_events_status_id", columnList = "status, id")
+})
+public class PaymentWebhookEvent {
+
+    // Event types we act on
+    public static final String PAYMENT_SUCCEEDED = "payment_intent.succeeded";
+    public static final String PAYMENT_FAILED = "payment_intent.payment_failed";
+    public static final String PAYMENT_CANCELED = "payment_intent.canceled";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Provider's event id; redeliveries of the same event are dropped on this unique key
+    @Column(name = "event_id", unique = true, nullable = false)
+    private String eventId;
+
+    @Column(name = "event_type", nullable = false)
+    private String eventType;
+
+    @Column(name = "payment_intent_id", nullable = false)
+    private String paymentIntentId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private PaymentWebhookEventStatus status = PaymentWebhookEventStatus.PENDING;
+
+    @Column(name = "received_at", nullable = false)
+    private LocalDateTime receivedAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+
+    // JPA requires no-arg constructor
+    protected PaymentWebhookEvent() {
+    }
+
+    // Business logic methods
+    public void markProcessed() {
+        this.status = PaymentWebhookEventStatus.PROCESSED;
+        this.processedAt = LocalDateTime.now();
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public String getEventId() {
+        return eventId;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public String getPaymentIntentId() {
+        return paymentIntentId;
+    }
+
+    public PaymentWebhookEventStatus getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getReceivedAt() {
+        return receivedAt;
+    }
+
+    public LocalDateTime getProcessedAt() {
+        return processedAt;
+    }
+}
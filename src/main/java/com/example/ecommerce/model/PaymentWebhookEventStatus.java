@@ -0,0 +1,6 @@
+package com.example.ecommerce.model;
+
+public enum PaymentWebhookEventStatus {
+    PENDING,
+    PROCESSED
+}
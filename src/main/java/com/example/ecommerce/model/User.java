@@ -1,9 +1,12 @@
 package com.example.ecommerce.model;
 
 import jakarta.persistence.*;
+import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        @Index(name = "idx_users_token_version_changed_at", columnList = "token_version_changed_at")
+})
 public class User {
 
     @Id
@@ -23,6 +26,13 @@ public class User {
     @Column(nullable = false)
     private Role role = Role.CUSTOMER; // Default role
 
+    // Embedded in issued JWTs; bumping it revokes every token issued before
+    @Column(name = "token_version", nullable = false, columnDefinition = "integer default 0")
+    private int tokenVersion = 0;
+
+    @Column(name = "token_version_changed_at")
+    private LocalDateTime tokenVersionChangedAt;
+
     // Required by JPA
     protected User() {
     }
@@ -62,6 +72,14 @@ public class User {
         return role;
     }
 
+    public int getTokenVersion() {
+        return tokenVersion;
+    }
+
+    public LocalDateTime getTokenVersionChangedAt() {
+        return tokenVersionChangedAt;
+    }
+
     // Setters
     public void setName(String name) {
         this.name = name;
@@ -0,0 +1,16 @@
+package com.example.ecommerce.repository;
+
+import com.example.ecommerce.model.ArchivedOrderItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ArchivedOrderItemRepository extends JpaRepository<ArchivedOrderItem, Long> {
+
+    @Query("SELECT ai FROM ArchivedOrderItem ai JOIN FETCH ai.product WHERE ai.order.id IN :orderIds ORDER BY ai.id")
+    List<ArchivedOrderItem> findByOrderIdInWithProduct(Collection<Long> orderIds);
+}
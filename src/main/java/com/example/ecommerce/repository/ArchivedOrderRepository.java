@@ -0,0 +1,50 @@
+package com.example.ecommerce.repository;
+
+import com.example.ecommerce.model.ArchivedOrder;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+
+@Repository
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrder, Long> {
+
+    @Query("SELECT DISTINCT ao FROM ArchivedOrder ao LEFT JOIN FETCH ao.items i LEFT JOIN FETCH i.product " +
+           "WHERE ao.id = :id")
+    Optional<ArchivedOrder> findByIdWithItems(Long id);
+
+    @Query("SELECT DISTINCT ao FROM ArchivedOrder ao LEFT JOIN FETCH ao.items i LEFT JOIN FETCH i.product " +
+           "WHERE ao.orderNumber = :orderNumber")
+    Optional<ArchivedOrder> findByOrderNumberWithItems(String orderNumber);
+
+    Page<ArchivedOrder> findByUserId(Long userId, Pageable pageable);
+
+    // Copies the given orders from the hot table, keeping their ids
+    @Modifying
+    @Query(value = "INSERT INTO orders_archive (id, order_number, user_id, status, subtotal, tax, shipping_cost, " +
+                   "discount, total_amount, shipping_name, shipping_address, shipping_city, shipping_state, " +
+                   "shipping_postal_code, shipping_country, shipping_phone, payment_method, payment_status, " +
+                   "transaction_id, created_at, updated_at, confirmed_at, shipped_at, delivered_at, cancelled_at, " +
+                   "cancellation_reason, notes, archived_at) " +
+                   "SELECT id, order_number, user_id, status, subtotal, tax, shipping_cost, " +
+                   "discount, total_amount, shipping_name, shipping_address, shipping_city, shipping_state, " +
+                   "shipping_postal_code, shipping_country, shipping_phone, payment_method, payment_status, " +
+                   "transaction_id, created_at, updated_at, confirmed_at, shipped_at, delivered_at, cancelled_at, " +
+                   "cancellation_reason, notes, :archivedAt " +
+                   "FROM orders WHERE id IN (:orderIds)",
+           nativeQuery = true)
+    int copyFromOrders(Collection<Long> orderIds, LocalDateTime archivedAt);
+
+    @Modifying
+    @Query(value = "INSERT INTO order_items_archive (id, order_id, product_id, quantity, price_at_purchase, created_at) " +
+                   "SELECT id, order_id, product_id, quantity, price_at_purchase, created_at " +
+                   "FROM order_items WHERE order_id IN (:orderIds)",
+           nativeQuery = true)
+    int copyItemsFromOrders(Collection<Long> orderIds);
+}
@@ -0,0 +1,61 @@
+package com.example.ecommerce.repository;
+
+import com.example.ecommerce.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+
+    Optional<IdempotencyRecord> findByUserEmailAndIdempotencyKey(String userEmail, String idempotencyKey);
+
+    // Returns 1 if this caller now owns the key, 0 if another request already holds it
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO idempotency_records " +
+                   "(user_email, idempotency_key, operation, request_hash, status, created_at, expires_at) " +
+                   "VALUES (:userEmail, :idempotencyKey, :operation, :requestHash, 'IN_PROGRESS', :now, :leaseUntil) " +
+                   "ON CONFLICT (user_email, idempotency_key) DO NOTHING",
+           nativeQuery = true)
+    int tryClaim(String userEmail, String idempotencyKey, String operation, String requestHash,
+                 LocalDateTime now, LocalDateTime leaseUntil);
+
+    // Takes over a key whose previous owner died mid-request (lease expired without completing)
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE idempotency_records SET expires_at = :leaseUntil " +
+                   "WHERE id = :id AND status = 'IN_PROGRESS' AND expires_at < :now",
+           nativeQuery = true)
+    int tryTakeOver(Long id, LocalDateTime now, LocalDateTime leaseUntil);
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE idempotency_records SET status = 'COMPLETED', response_status = :responseStatus, " +
+                   "response_body = :responseBody, expires_at = :expiresAt " +
+                   "WHERE user_email = :userEmail AND idempotency_key = :idempotencyKey",
+           nativeQuery = true)
+    int complete(String userEmail, String idempotencyKey, int responseStatus, String responseBody,
+                 LocalDateTime expiresAt);
+
+    // Frees the key so a retry runs the request again
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM idempotency_records " +
+                   "WHERE user_email = :userEmail AND idempotency_key = :idempotencyKey AND status = 'IN_PROGRESS'",
+           nativeQuery = true)
+    int release(String userEmail, String idempotencyKey);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM idempotency_records WHERE id IN (" +
+                   "SELECT id FROM idempotency_records WHERE expires_at < :now " +
+                   "LIMIT :batchSize)",
+           nativeQuery = true)
+    int deleteExpired(LocalDateTime now, int batchSize);
+}
@@ -1,24 +1,36 @@
 package com.example.ecommerce.repository;
 
+import com.example.ecommerce.dto.OrderSummaryResponse;
 import com.example.ecommerce.model.Order;
 import com.example.ecommerce.model.OrderStatus;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecificationExecutor<Order> {
 
     Optional<Order> findByOrderNumber(String orderNumber);
 
     Page<Order> findByUserId(Long userId, Pageable pageable);
 
+    // Admin listings show the customer's email, so fetch the user with the page
+    @Override
+    @EntityGraph(attributePaths = "user")
+    Page<Order> findAll(Pageable pageable);
+
+    @EntityGraph(attributePaths = "user")
     Page<Order> findByStatus(OrderStatus status, Pageable pageable);
 
     Page<Order> findByUserIdAndStatus(Long userId, OrderStatus status, Pageable pageable);
@@ -38,5 +50,94 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     Long countOrdersByStatus(OrderStatus status);
 
     boolean existsByOrderNumber(String orderNumber);
-}
 
+    // Order history summaries: one row per order, item count and thumbnail computed in the same query
+    @Query(value = "SELECT new com.example.ecommerce.dto.OrderSummaryResponse(" +
+                   "o.id, o.orderNumber, o.status, o.paymentStatus, o.totalAmount, " +
+                   "(SELECT COALESCE(SUM(oi.quantity), 0L) FROM OrderItem oi WHERE oi.order = o), " +
+                   "(SELECT p.imageUrl FROM OrderItem fi JOIN fi.product p WHERE fi.id = " +
+                   "(SELECT MIN(mi.id) FROM OrderItem mi WHERE mi.order = o)), " +
+                   "o.createdAt) " +
+                   "FROM Order o WHERE o.user.id = :userId",
+           countQuery = "SELECT COUNT(o) FROM Order o WHERE o.user.id = :userId")
+    Page<OrderSummaryResponse> findSummariesByUserId(Long userId, Pageable pageable);
+
+    // Guarded set-based status transition; returns the ids that were actually moved.
+    // Not @Modifying: that runs executeUpdate, which only yields a row count, while RETURNING needs getResultList.
+    // Runs in the caller's transaction (OrderService is @Transactional)
+    @Query(value = "UPDATE orders SET status = :toStatus, updated_at = :now, " +
+                   "confirmed_at = CASE WHEN :toStatus = 'CONFIRMED' THEN :now ELSE confirmed_at END, " +
+                   "shipped_at = CASE WHEN :toStatus = 'SHIPPED' THEN :now ELSE shipped_at END, " +
+                   "delivered_at = CASE WHEN :toStatus = 'DELIVERED' THEN :now ELSE delivered_at END, " +
+                   "cancelled_at = CASE WHEN :toStatus = 'CANCELLED' THEN :now ELSE cancelled_at END, " +
+                   "cancellation_reason = CASE WHEN :toStatus = 'CANCELLED' THEN :reason ELSE cancellation_reason END " +
+                   "WHERE id IN (:ids) AND status IN (:allowedFrom) " +
+                   "RETURNING id",
+           nativeQuery = true)
+    List<Long> transitionStatus(Collection<Long> ids, Collection<String> allowedFrom, String toStatus,
+                                LocalDateTime now, String reason);
+
+    // Claims the oldest batch of finished orders for archival; SKIP LOCKED keeps the job off rows being updated
+    @Query(value = "SELECT id FROM orders WHERE status IN (:statuses) AND created_at < :cutoff " +
+                   "ORDER BY id LIMIT :batchSize FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<Long> lockIdsForArchival(Collection<String> statuses, LocalDateTime cutoff, int batchSize);
+
+    @Modifying
+    @Query("DELETE FROM Order o WHERE o.id IN :orderIds")
+    int deleteByIdIn(Collection<Long> orderIds);
+
+    // Attach a newly created payment intent unless the order was paid or given another intent in the meantime
+    // (previousPaymentIntentId is the intent seen before the gateway call, '' for none)
+    @Modifying
+    @Query("UPDATE Order o SET o.transactionId = :paymentIntentId, o.paymentMethod = :paymentMethod, " +
+           "o.paymentStatus = 'PENDING', o.updatedAt = :now " +
+           "WHERE o.id = :orderId AND (o.paymentStatus IS NULL OR o.paymentStatus <> 'PAID') " +
+           "AND COALESCE(o.transactionId, '') = :previousPaymentIntentId")
+    int attachPaymentIntent(Long orderId, String paymentIntentId, String previousPaymentIntentId,
+                            String paymentMethod, LocalDateTime now);
+
+    // Confirm a paid order through its attached intent; the status guard makes concurrent confirmations and late
+    // payments no-ops, and the intent guard stops an intent replaced in the meantime from confirming the order
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Order o SET o.paymentStatus = 'PAID', " +
+           "o.status = com.example.ecommerce.model.OrderStatus.CONFIRMED, o.confirmedAt = :now, o.updatedAt = :now " +
+           "WHERE o.id = :orderId AND o.transactionId = :paymentIntentId " +
+           "AND o.status = com.example.ecommerce.model.OrderStatus.PENDING " +
+           "AND (o.paymentStatus IS NULL OR o.paymentStatus <> 'PAID')")
+    int markPaidAndConfirmed(Long orderId, String paymentIntentId, LocalDateTime now);
+
+    // Webhook path: confirm every pending, unpaid order whose intent succeeded; returns the orders moved.
+    // Like transitionStatus, runs in the caller's transaction (PaymentOutcomeService requires one)
+    @Query(value = "UPDATE orders SET payment_status = 'PAID', status = 'CONFIRMED', " +
+                   "confirmed_at = :now, updated_at = :now " +
+                   "WHERE transaction_id IN (:paymentIntentIds) AND status = 'PENDING' " +
+                   "AND (payment_status IS NULL OR payment_status <> 'PAID') " +
+                   "RETURNING id",
+           nativeQuery = true)
+    List<Long> markPaidByPaymentIntents(Collection<String> paymentIntentIds, LocalDateTime now);
+
+    // Webhook path: record a failed/cancelled payment; a PAID order is never downgraded
+    @Query(value = "UPDATE orders SET payment_status = :paymentStatus, updated_at = :now " +
+                   "WHERE transaction_id IN (:paymentIntentIds) " +
+                   "AND (payment_status IS NULL OR payment_status NOT IN ('PAID', :paymentStatus)) " +
+                   "RETURNING id",
+           nativeQuery = true)
+    List<Long> setPaymentStatusByPaymentIntents(Collection<String> paymentIntentIds, String paymentStatus,
+                                                LocalDateTime now);
+
+    // Payment reconciliation: id, intent and age of orders still awaiting payment
+    interface PendingPayment {
+        Long getId();
+
+        String getTransactionId();
+
+        LocalDateTime getCreatedAt();
+    }
+
+    // Keyset page of orders with an open payment intent, created before the cutoff, in id order
+    @Query("SELECT o.id AS id, o.transactionId AS transactionId, o.createdAt AS createdAt FROM Order o " +
+           "WHERE o.paymentStatus = 'PENDING' AND o.transactionId IS NOT NULL " +
+           "AND o.createdAt < :createdBefore AND o.id > :afterId ORDER BY o.id")
+    List<PendingPayment> findPendingPaymentsAfter(LocalDateTime createdBefore, Long afterId, Limit limit);
+}
@@ -0,0 +1,74 @@
+package com.example.ecommerce.repository;
+
+import com.example.ecommerce.dto.OrderSearchCriteria;
+import com.example.ecommerce.model.Order;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Criteria for the admin order search; only the filters that are set end up in the WHERE clause
+public final class OrderSpecifications {
+
+    private OrderSpecifications() {
+    }
+
+    /**
+     * Build the search predicate, including the keyset condition for the requested page
+     * @param criteria The search filters
+     * @param userId Resolved id for criteria.userEmail, or null when not filtering by user
+     * @param afterCreatedAt createdAt of the last order on the previous page, or null for the first page
+     * @param afterId id of the last order on the previous page
+     * @return Specification for orders sorted by createdAt desc, id desc
+     */
+    public static Specification<Order> search(OrderSearchCriteria criteria, Long userId,
+                                              LocalDateTime afterCreatedAt, Long afterId) {
+        return (root, query, cb) -> {
+            // The customer's email is part of every result row; fetch it in the same query
+            if (query != null && Order.class.equals(query.getResultType())) {
+                root.fetch("user", JoinType.INNER);
+            }
+
+            List<Predicate> predicates = new ArrayList<>();
+
+            if (criteria.getCreatedFrom() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("createdAt"), criteria.getCreatedFrom()));
+            }
+            if (criteria.getCreatedTo() != null) {
+                predicates.add(cb.lessThan(root.get("createdAt"), criteria.getCreatedTo()));
+            }
+            if (criteria.getStatuses() != null && !criteria.getStatuses().isEmpty()) {
+                predicates.add(root.get("status").in(criteria.getStatuses()));
+            }
+            if (userId != null) {
+                predicates.add(cb.equal(root.get("user").get("id"), userId));
+            }
+            if (criteria.getMinTotal() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("totalAmount"), criteria.getMinTotal()));
+            }
+            if (criteria.getMaxTotal() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("totalAmount"), criteria.getMaxTotal()));
+            }
+            if (criteria.getPaymentStatus() != null && !criteria.getPaymentStatus().isBlank()) {
+                predicates.add(cb.equal(root.get("paymentStatus"), criteria.getPaymentStatus()));
+            }
+            if (criteria.getShippingCountry() != null && !criteria.getShippingCountry().isBlank()) {
+                predicates.add(cb.equal(root.get("shippingCountry"), criteria.getShippingCountry()));
+            }
+
+            // Keyset: rows strictly after the previous page's last (createdAt, id) in descending order
+            if (afterCreatedAt != null) {
+                predicates.add(cb.or(
+                        cb.lessThan(root.get("createdAt"), afterCreatedAt),
+                        cb.and(
+                                cb.equal(root.get("createdAt"), afterCreatedAt),
+                                cb.lessThan(root.get("id"), afterId))));
+            }
+
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
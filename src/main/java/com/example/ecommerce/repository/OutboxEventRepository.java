@@ -0,0 +1,67 @@
+package com.example.ecommerce.repository;
+
+import com.example.ecommerce.model.OutboxEvent;
+import com.example.ecommerce.model.OutboxEventStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Claims the next due batch by leasing it until leaseUntil, so the rows need no lock while handlers run;
+    // rows locked by another dispatcher's claim are skipped rather than waited on.
+    // No @Modifying on purpose: RETURNING produces a result set, which needs getResultList
+    @Query(value = "UPDATE outbox_events SET next_attempt_at = :leaseUntil WHERE id IN (" +
+                   "SELECT id FROM outbox_events WHERE status = 'PENDING' AND next_attempt_at <= :now " +
+                   "ORDER BY id LIMIT :batchSize FOR UPDATE SKIP LOCKED) " +
+                   "RETURNING *",
+           nativeQuery = true)
+    List<OutboxEvent> claimNextBatch(LocalDateTime now, LocalDateTime leaseUntil, int batchSize);
+
+    // Records a dispatch outcome only while the caller still holds the lease it claimed the event with; once the
+    // lease has run out another poller may have re-claimed the event, and that claim's outcome wins
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.status = :status, e.attempts = :attempts, e.nextAttemptAt = :nextAttemptAt, " +
+           "e.lastError = :lastError, e.dispatchedAt = :dispatchedAt " +
+           "WHERE e.id = :id AND e.status = com.example.ecommerce.model.OutboxEventStatus.PENDING " +
+           "AND e.nextAttemptAt = :leaseUntil")
+    int recordOutcome(Long id, LocalDateTime leaseUntil, OutboxEventStatus status, int attempts,
+                      LocalDateTime nextAttemptAt, String lastError, LocalDateTime dispatchedAt);
+
+    // One ORDER_STATUS_CHANGED event per order, written with a single INSERT ... SELECT;
+    // same fields as the single-order payload (OrderService.orderEventPayload)
+    @Modifying
+    @Query(value = "INSERT INTO outbox_events " +
+                   "(aggregate_type, aggregate_id, event_type, payload, status, attempts, next_attempt_at, created_at) " +
+                   "SELECT 'Order', o.id, 'ORDER_STATUS_CHANGED', " +
+                   "json_build_object('orderId', o.id, 'orderNumber', o.order_number, 'userId', o.user_id, " +
+                   "'status', o.status, 'paymentStatus', o.payment_status, 'totalAmount', o.total_amount, " +
+                   "'cancellationReason', o.cancellation_reason)::text, " +
+                   "'PENDING', 0, :now, :now FROM orders o WHERE o.id IN (:orderIds)",
+           nativeQuery = true)
+    int insertOrderStatusChangedEvents(Collection<Long> orderIds, LocalDateTime now);
+
+    // One PAYMENT_CONFIRMED event per order, for payments confirmed in bulk from webhooks
+    @Modifying
+    @Query(value = "INSERT INTO outbox_events " +
+                   "(aggregate_type, aggregate_id, event_type, payload, status, attempts, next_attempt_at, created_at) " +
+                   "SELECT 'Order', o.id, 'PAYMENT_CONFIRMED', " +
+                   "json_build_object('orderId', o.id, 'orderNumber', o.order_number, " +
+                   "'paymentIntentId', o.transaction_id, 'totalAmount', o.total_amount)::text, " +
+                   "'PENDING', 0, :now, :now FROM orders o WHERE o.id IN (:orderIds)",
+           nativeQuery = true)
+    int insertPaymentConfirmedEvents(Collection<Long> orderIds, LocalDateTime now);
+
+    @Modifying
+    @Query(value = "DELETE FROM outbox_events WHERE id IN (" +
+                   "SELECT id FROM outbox_events WHERE status = 'DISPATCHED' AND dispatched_at < :before " +
+                   "LIMIT :batchSize)",
+           nativeQuery = true)
+    int deleteDispatchedBefore(LocalDateTime before, int batchSize);
+}
@@ -0,0 +1,19 @@
+package com.example.ecommerce.repository;
+
+import com.example.ecommerce.model.PaymentIntentRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface PaymentIntentRecordRepository extends JpaRepository<PaymentIntentRecord, String> {
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE PaymentIntentRecord p SET p.status = :status, p.updatedAt = :now WHERE p.id = :id")
+    int updateStatus(String id, String status, LocalDateTime now);
+}
@@ -0,0 +1,40 @@
+package com.example.ecommerce.repository;
+
+import com.example.ecommerce.model.PaymentWebhookEvent;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface PaymentWebhookEventRepository extends JpaRepository<PaymentWebhookEvent, Long> {
+
+    // Returns 1 for a new event, 0 for a redelivery; the short timeout keeps the webhook response fast
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = "jakarta.persistence.query.timeout", value = "2000"))
+    @Query(value = "INSERT INTO payment_webhook_events (event_id, event_type, payment_intent_id, status, received_at) " +
+                   "VALUES (:eventId, :eventType, :paymentIntentId, 'PENDING', :now) " +
+                   "ON CONFLICT (event_id) DO NOTHING",
+           nativeQuery = true)
+    int insertIfAbsent(String eventId, String eventType, String paymentIntentId, LocalDateTime now);
+
+    // Claims the next batch in arrival order; rows locked by another worker are skipped
+    @Query(value = "SELECT * FROM payment_webhook_events WHERE status = 'PENDING' " +
+                   "ORDER BY id LIMIT :batchSize FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<PaymentWebhookEvent> lockNextBatch(int batchSize);
+
+    @Modifying
+    @Query(value = "DELETE FROM payment_webhook_events WHERE id IN (" +
+                   "SELECT id FROM payment_webhook_events WHERE status = 'PROCESSED' AND processed_at < :before " +
+                   "LIMIT :batchSize)",
+           nativeQuery = true)
+    int deleteProcessedBefore(LocalDateTime before, int batchSize);
+}
@@ -4,11 +4,13 @@ import com.example.ecommerce.model.Product;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -50,5 +52,15 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
 
     @Query("SELECT DISTINCT p.brand FROM Product p WHERE p.brand IS NOT NULL ORDER BY p.brand")
     List<String> findAllBrands();
+
+    // Puts the ordered quantities of the given orders back into stock with one aggregated UPDATE
+    @Modifying
+    @Query(value = "UPDATE products p SET stock_quantity = p.stock_quantity + restored.quantity, " +
+                   "updated_at = CURRENT_TIMESTAMP " +
+                   "FROM (SELECT oi.product_id, SUM(oi.quantity) AS quantity FROM order_items oi " +
+                   "WHERE oi.order_id IN (:orderIds) GROUP BY oi.product_id) restored " +
+                   "WHERE p.id = restored.product_id",
+           nativeQuery = true)
+    int restoreStockForOrders(@Param("orderIds") Collection<Long> orderIds);
 }
 
@@ -1,11 +1,43 @@
 package com.example.ecommerce.repository;
 
+import com.example.ecommerce.model.Role;
 import com.example.ecommerce.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     boolean existsByEmail(String email);
     Optional<User> findByEmail(String email);
+
+    // Token version check for JWT revocation
+    interface TokenVersion {
+        Long getId();
+
+        int getTokenVersion();
+    }
+
+    @Query("SELECT u.tokenVersion FROM User u WHERE u.id = :userId")
+    Optional<Integer> findTokenVersionById(Long userId);
+
+    @Query("SELECT u.id AS id, u.tokenVersion AS tokenVersion FROM User u WHERE u.tokenVersionChangedAt >= :since")
+    List<TokenVersion> findTokenVersionsChangedSince(LocalDateTime since);
+
+    // Changes the role and revokes the user's existing tokens, which carry the old role
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.role = :role, u.tokenVersion = u.tokenVersion + 1, u.tokenVersionChangedAt = :now " +
+           "WHERE u.id = :userId")
+    int updateRoleAndRevokeTokens(Long userId, Role role, LocalDateTime now);
+
+    // Replaces a password hash, unless the password was changed since it was read
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.password = :newHash WHERE u.id = :userId AND u.password = :currentHash")
+    int updatePasswordHash(Long userId, String currentHash, String newHash);
 }
@@ -0,0 +1,46 @@
+package com.example.ecommerce.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+/**
+ * Picks the BCrypt cost for this hardware: the highest cost whose hash time stays under the target.
+ * Each cost step doubles the work, so one measurement at the minimum cost predicts the others.
+ */
+public final class BCryptCostCalibrator {
+
+    private static final Logger log = LoggerFactory.getLogger(BCryptCostCalibrator.class);
+
+    private static final String SAMPLE_PASSWORD = "calibration-sample-password";
+
+    private BCryptCostCalibrator() {
+    }
+
+    /**
+     * @param minCost Lowest acceptable cost, used even if it exceeds the target
+     * @param maxCost Highest cost to consider
+     * @param targetMillis Hash time to stay under
+     * @return The chosen cost
+     */
+    public static int calibrate(int minCost, int maxCost, long targetMillis) {
+        // First run warms up the JIT; the best of the next runs is the measurement
+        BCrypt.hashpw(SAMPLE_PASSWORD, BCrypt.gensalt(minCost));
+        long bestNanos = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw(SAMPLE_PASSWORD, BCrypt.gensalt(minCost));
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+        }
+
+        double minCostMillis = bestNanos / 1_000_000.0;
+        int cost = minCost;
+        while (cost < maxCost && minCostMillis * (1L << (cost + 1 - minCost)) <= targetMillis) {
+            cost++;
+        }
+
+        log.info("BCrypt cost {} selected (cost {} took {} ms, target {} ms)",
+                cost, minCost, String.format("%.1f", minCostMillis), targetMillis);
+        return cost;
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.ecommerce.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Signed guest cart tokens, so guest carts need no server-side session.
+ * A token is "<guest id>.<HMAC-SHA256 of the id>", both base64url; any node holding the secret can verify it.
+ * The guest id is what Cart.sessionId stores for guest carts.
+ * The key is cart.token.secret, or else HMAC-SHA256(jwt.secret, "cart-token"): never the JWT key itself, so a
+ * cart token signature can never double as a JWT signature or the other way round.
+ */
+@Component
+public class CartTokenService {
+
+    public static final String COOKIE_NAME = "cart_token";
+    public static final String HEADER = "X-Cart-Token";
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final String KEY_DERIVATION_LABEL = "cart-token";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec key;
+    private final SecureRandom random = new SecureRandom();
+
+    public CartTokenService(@Value("${cart.token.secret:}") String secret,
+                            @Value("${jwt.secret}") String jwtSecret) {
+        byte[] keyBytes = secret.isBlank()
+                ? hmac(new SecretKeySpec(jwtSecret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM),
+                        KEY_DERIVATION_LABEL.getBytes(StandardCharsets.US_ASCII))
+                : secret.getBytes(StandardCharsets.UTF_8);
+        this.key = new SecretKeySpec(keyBytes, HMAC_ALGORITHM);
+    }
+
+    /**
+     * @return A token for a new guest cart
+     */
+    public String issue() {
+        byte[] guestId = new byte[16];
+        random.nextBytes(guestId);
+        String id = ENCODER.encodeToString(guestId);
+        return id + "." + sign(id);
+    }
+
+    /**
+     * @param token A token from a cookie or header
+     * @return The guest id, or empty if the token is missing, malformed or not signed by us
+     */
+    public Optional<String> verify(String token) {
+        if (token == null) {
+            return Optional.empty();
+        }
+        int dot = token.indexOf('.');
+        if (dot <= 0 || dot == token.length() - 1) {
+            return Optional.empty();
+        }
+        String id = token.substring(0, dot);
+        byte[] expected = sign(id).getBytes(StandardCharsets.US_ASCII);
+        byte[] actual = token.substring(dot + 1).getBytes(StandardCharsets.US_ASCII);
+        // Constant-time comparison
+        return MessageDigest.isEqual(expected, actual) ? Optional.of(id) : Optional.empty();
+    }
+
+    private String sign(String id) {
+        return ENCODER.encodeToString(hmac(key, id.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    private static byte[] hmac(SecretKeySpec key, byte[] data) {
+        try {
+            // Mac instances are not thread-safe; creating one is cheap next to the request
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(data);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot sign cart token", e);
+        }
+    }
+}
@@ -1,11 +1,13 @@
 package com.example.ecommerce.security;
 
-import com.example.ecommerce.model.User;
-import com.example.ecommerce.repository.UserRepository;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -16,16 +18,36 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    private final JwtUtil jwtUtil;
-    private final UserRepository userRepository;
+    private static final String AUTHORITIES_FROM_DATABASE = "database";
 
-    public JwtAuthenticationFilter(JwtUtil jwtUtil, UserRepository userRepository) {
+    private final JwtUtil jwtUtil;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final PrincipalCache principalCache;
+
+    // Time to authenticate a bearer token, excluding the rest of the chain, by outcome
+    private final Timer authenticated;
+    private final Timer rejected;
+    private final Timer failed;
+
+    // "token" (default): role from the token's claims; "database": role looked up per user, cached briefly
+    @Value("${jwt.authorities-source:token}")
+    private String authoritiesSource;
+
+    public JwtAuthenticationFilter(JwtUtil jwtUtil,
+                                   TokenVersionRegistry tokenVersionRegistry,
+                                   PrincipalCache principalCache,
+                                   MeterRegistry meterRegistry) {
         this.jwtUtil = jwtUtil;
-        this.userRepository = userRepository;
+        this.tokenVersionRegistry = tokenVersionRegistry;
+        this.principalCache = principalCache;
+        this.authenticated = filterTimer(meterRegistry, "authenticated");
+        this.rejected = filterTimer(meterRegistry, "rejected");
+        this.failed = filterTimer(meterRegistry, "error");
     }
 
     @Override
@@ -43,43 +65,71 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             return;
         }
 
+        long start = System.nanoTime();
+        Timer outcome = rejected;
         try {
             // Extract token from header
             String token = authHeader.substring(7);
 
-            // Validate token
-            if (jwtUtil.validateToken(token)) {
-                String email = jwtUtil.extractEmail(token);
-
-                // Load user from database
-                User user = userRepository.findByEmail(email).orElse(null);
-
-                if (user != null) {
-                    // Create authority based on user role
-                    SimpleGrantedAuthority authority = new SimpleGrantedAuthority("ROLE_" + user.getRole().name());
-
-                    // Create authentication token with role-based authority
-                    UsernamePasswordAuthenticationToken authentication =
-                            new UsernamePasswordAuthenticationToken(
-                                    user.getEmail(),
-                                    null,
-                                    Collections.singletonList(authority)
-                            );
-
-                    authentication.setDetails(
-                            new WebAuthenticationDetailsSource().buildDetails(request)
-                    );
-
-                    // Set authentication in SecurityContext
-                    SecurityContextHolder.getContext().setAuthentication(authentication);
-                }
+            // Verify token once; claims of tokens seen before come from the verified-token cache
+            Claims claims = jwtUtil.parseToken(token).orElse(null);
+            String role = claims == null ? null : resolveRole(claims);
+            if (role != null) {
+                // Create authority based on user role
+                SimpleGrantedAuthority authority = new SimpleGrantedAuthority("ROLE_" + role);
+
+                // Create authentication token with role-based authority
+                UsernamePasswordAuthenticationToken authentication =
+                        new UsernamePasswordAuthenticationToken(
+                                claims.getSubject(),
+                                null,
+                                Collections.singletonList(authority)
+                        );
+
+                authentication.setDetails(
+                        new WebAuthenticationDetailsSource().buildDetails(request)
+                );
+
+                // Set authentication in SecurityContext
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+                outcome = authenticated;
             }
         } catch (Exception e) {
             // Log error but continue filter chain
             logger.error("JWT authentication failed", e);
+            outcome = failed;
         }
+        outcome.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
 
         filterChain.doFilter(request, response);
     }
-}
 
+    private static Timer filterTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("security.jwt.filter")
+                .description("Bearer token authentication in the JWT filter")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    // The user's role, or null if the token must not authenticate
+    private String resolveRole(Claims claims) {
+        if (AUTHORITIES_FROM_DATABASE.equals(authoritiesSource)) {
+            // Role as currently stored, via the short-lived principal cache
+            return principalCache.get(claims.getSubject())
+                    .map(principal -> principal.getRole().name())
+                    .orElse(null);
+        }
+
+        // Identity and role come from the token itself; no user lookup per request
+        Long userId = claims.get(JwtUtil.USER_ID_CLAIM, Long.class);
+        String role = claims.get(JwtUtil.ROLE_CLAIM, String.class);
+        Integer tokenVersion = claims.get(JwtUtil.TOKEN_VERSION_CLAIM, Integer.class);
+
+        // Tokens without these claims predate them and must be renewed by logging in again
+        if (userId == null || role == null || tokenVersion == null
+                || !tokenVersionRegistry.isCurrent(userId, tokenVersion)) {
+            return null;
+        }
+        return role;
+    }
+}
@@ -1,37 +1,96 @@
 package com.example.ecommerce.security;
 
+import com.example.ecommerce.model.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtUtil {
 
+    // Custom claims
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String ROLE_CLAIM = "role";
+    public static final String TOKEN_VERSION_CLAIM = "ver";
+
     private final SecretKey secretKey;
     private final long expirationTime;
 
+    // Built once; JwtParser is immutable and thread-safe
+    private final JwtParser parser;
+
+    // SHA-256 of a verified token -> its claims, kept until the token expires (max-size 0 disables it)
+    private final Cache<String, Claims> verifiedTokens;
+    private final boolean cacheEnabled;
+
     public JwtUtil(
             @Value("${jwt.secret}") String secret,
-            @Value("${jwt.expiration}") long expirationTime
+            @Value("${jwt.expiration}") long expirationTime,
+            @Value("${jwt.cache.max-size:10000}") long cacheMaxSize,
+            MeterRegistry meterRegistry
     ) {
         this.secretKey = Keys.hmacShaKeyFor(secret.getBytes());
         this.expirationTime = expirationTime;
+        this.parser = Jwts.parser()
+                .verifyWith(secretKey)
+                .build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new Expiry<String, Claims>() {
+                    @Override
+                    public long expireAfterCreate(String key, Claims claims, long currentTime) {
+                        long remainingMs = claims.getExpiration().getTime() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMs, 0));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        this.cacheEnabled = cacheMaxSize > 0;
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "jwtVerifiedTokens");
     }
 
     /**
-     * Generate JWT token for the given email
+     * Generate JWT token for the given user
+     * Besides the email (subject) it carries the user id, role and token version, so requests can be
+     * authenticated from the token alone
      */
-    public String generateToken(String email) {
+    public String generateToken(User user) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + expirationTime);
 
         return Jwts.builder()
-                .subject(email)
+                .subject(user.getEmail())
+                .claim(USER_ID_CLAIM, user.getId())
+                .claim(ROLE_CLAIM, user.getRole().name())
+                .claim(TOKEN_VERSION_CLAIM, user.getTokenVersion())
                 .issuedAt(now)
                 .expiration(expiryDate)
                 .signWith(secretKey)
@@ -39,35 +98,42 @@ public class JwtUtil {
     }
 
     /**
-     * Extract email from JWT token
+     * Verify a token and return its claims, parsing it at most once.
+     * Tokens verified before are served from a cache keyed by their digest, skipping signature checks.
+     * @param token The compact JWT
+     * @return The claims, or empty if the token is malformed, forged or expired
      */
-    public String extractEmail(String token) {
-        return extractClaims(token).getSubject();
-    }
-
-    /**
-     * Validate JWT token
-     */
-    public boolean validateToken(String token) {
-        try {
-            extractClaims(token);
-            return !isTokenExpired(token);
-        } catch (Exception e) {
-            return false;
+    public Optional<Claims> parseToken(String token) {
+        String digest = cacheEnabled ? digest(token) : null;
+        Claims claims = cacheEnabled ? verifiedTokens.getIfPresent(digest) : null;
+        if (claims == null) {
+            try {
+                // Checks signature and expiry in one pass
+                claims = parser.parseSignedClaims(token).getPayload();
+            } catch (JwtException | IllegalArgumentException e) {
+                return Optional.empty();
+            }
+            if (claims.getExpiration() == null) {
+                return Optional.empty();
+            }
+            if (cacheEnabled) {
+                verifiedTokens.put(digest, claims);
+            }
         }
-    }
 
-    private Claims extractClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(secretKey)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        // Entries may outlive expiry by the cache's timer granularity
+        if (claims.getExpiration().getTime() <= System.currentTimeMillis()) {
+            return Optional.empty();
+        }
+        return Optional.of(claims);
     }
 
-    private boolean isTokenExpired(String token) {
-        Date expiration = extractClaims(token).getExpiration();
-        return expiration.before(new Date());
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 }
-
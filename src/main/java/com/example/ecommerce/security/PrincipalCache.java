@@ -0,0 +1,80 @@
+package com.example.ecommerce.security;
+
+import com.example.ecommerce.model.Role;
+import com.example.ecommerce.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Short-lived cache of users' roles by email, for jwt.authorities-source=database, where the role is read from
+ * the database instead of the token. Concurrent misses for the same email share one query; admins' role changes
+ * evict the entry, and the TTL bounds staleness for changes made on other nodes.
+ * Metrics (hit ratio, load duration) are exported as cache.* with cache=jwtPrincipals.
+ */
+@Component
+public class PrincipalCache {
+
+    private final UserRepository userRepository;
+    private final LoadingCache<String, Optional<CachedPrincipal>> principals;
+
+    public PrincipalCache(UserRepository userRepository,
+                          MeterRegistry meterRegistry,
+                          @Value("${jwt.principal-cache.max-size:10000}") long maxSize,
+                          @Value("${jwt.principal-cache.ttl-ms:30000}") long ttlMs) {
+        this.userRepository = userRepository;
+        // Unknown emails are cached as empty too, so bogus subjects cannot hammer the database
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build(this::load);
+        CaffeineCacheMetrics.monitor(meterRegistry, principals, "jwtPrincipals");
+    }
+
+    /**
+     * @param email The token subject
+     * @return The user's id and current role, or empty if no such user exists
+     */
+    public Optional<CachedPrincipal> get(String email) {
+        return principals.get(email);
+    }
+
+    /**
+     * Drop a user's entry after their role changed on this node
+     * @param email The user's email
+     */
+    public void evict(String email) {
+        principals.invalidate(email);
+    }
+
+    private Optional<CachedPrincipal> load(String email) {
+        return userRepository.findByEmail(email)
+                .map(user -> new CachedPrincipal(user.getId(), user.getRole()));
+    }
+
+    public static class CachedPrincipal {
+
+        private final Long userId;
+        private final Role role;
+
+        public CachedPrincipal(Long userId, Role role) {
+            this.userId = userId;
+            this.role = role;
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        public Role getRole() {
+            return role;
+        }
+    }
+}
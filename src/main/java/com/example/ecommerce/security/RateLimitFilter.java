@@ -0,0 +1,292 @@
+package com.example.ecommerce.security;
+
+import com.example.ecommerce.dto.LoginRequest;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.SequenceInputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token-bucket rate limiting for the expensive public routes: login and register (BCrypt) and product
+ * search per client IP, login additionally per submitted email (so rotating IPs cannot brute-force one
+ * account), checkout per signed-in user. Rejected requests get 429 with Retry-After.
+ * The per-email login bucket is only charged by failed logins (401), so signing in normally never uses it up;
+ * wrong passwords for an address still do, which is the price of bounding guesses against it.
+ * Runs ahead of the security filter chain so rejected requests cost as little as possible; the user for
+ * per-user routes is read from the bearer token through JwtUtil's verified-token cache.
+ * Routes are matched on the servlet path (context path, path parameters and encoding removed by the
+ * container), the same path Spring MVC dispatches on.
+ * Behind a proxy, enable server.forward-headers-strategy so the client IP is the real one.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 100)
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    // Login bodies are tiny; only this much is buffered to find the email
+    private static final int MAX_EMAIL_BODY_BYTES = 4096;
+
+    private final JwtUtil jwtUtil;
+    private final ObjectMapper objectMapper;
+    private final List<Route> routes;
+
+    @Value("${rate-limit.enabled:true}")
+    private boolean enabled;
+
+    public RateLimitFilter(JwtUtil jwtUtil,
+                           ObjectMapper objectMapper,
+                           MeterRegistry meterRegistry,
+                           @Value("${rate-limit.max-keys-per-route:100000}") int maxKeys,
+                           @Value("${rate-limit.login.capacity:10}") long loginCapacity,
+                           @Value("${rate-limit.login.refill-per-second:0.2}") double loginRefill,
+                           @Value("${rate-limit.login-email.capacity:20}") long loginEmailCapacity,
+                           @Value("${rate-limit.login-email.refill-per-second:0.02}") double loginEmailRefill,
+                           @Value("${rate-limit.register.capacity:5}") long registerCapacity,
+                           @Value("${rate-limit.register.refill-per-second:0.05}") double registerRefill,
+                           @Value("${rate-limit.search.capacity:30}") long searchCapacity,
+                           @Value("${rate-limit.search.refill-per-second:5}") double searchRefill,
+                           @Value("${rate-limit.checkout.capacity:5}") long checkoutCapacity,
+                           @Value("${rate-limit.checkout.refill-per-second:0.1}") double checkoutRefill) {
+        this.jwtUtil = jwtUtil;
+        this.objectMapper = objectMapper;
+        // A request is checked against every route it matches, in this order
+        this.routes = List.of(
+                new Route("login", "POST", "/api/users/login", KeyType.CLIENT_IP,
+                        new RateLimiter(loginCapacity, loginRefill, maxKeys), meterRegistry),
+                new Route("login-email", "POST", "/api/users/login", KeyType.LOGIN_EMAIL,
+                        new RateLimiter(loginEmailCapacity, loginEmailRefill, maxKeys), meterRegistry),
+                new Route("register", "POST", "/api/users/register", KeyType.CLIENT_IP,
+                        new RateLimiter(registerCapacity, registerRefill, maxKeys), meterRegistry),
+                new Route("search", "GET", "/api/products/search", KeyType.CLIENT_IP,
+                        new RateLimiter(searchCapacity, searchRefill, maxKeys), meterRegistry),
+                new Route("checkout", "POST", "/api/orders/checkout", KeyType.USER,
+                        new RateLimiter(checkoutCapacity, checkoutRefill, maxKeys), meterRegistry)
+        );
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        if (!enabled) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String method = request.getMethod();
+        String path = pathWithinApplication(request);
+        long now = System.nanoTime();
+        // Charged after the chain, and only if the login failed
+        Route failureRoute = null;
+        String failureKey = null;
+        for (Route route : routes) {
+            if (!route.matches(method, path)) {
+                continue;
+            }
+            String key;
+            if (route.keyType == KeyType.LOGIN_EMAIL) {
+                BufferedBodyRequest buffered = BufferedBodyRequest.wrap(request, MAX_EMAIL_BODY_BYTES);
+                request = buffered;
+                key = loginEmail(buffered.getBufferedBody());
+            } else {
+                key = clientKey(request, route.keyType == KeyType.USER);
+            }
+            // No email in the body: the login fails anyway and the per-IP bucket already applied
+            if (key == null) {
+                continue;
+            }
+            long waitNanos;
+            if (route.keyType == KeyType.LOGIN_EMAIL) {
+                waitNanos = route.limiter.waitTime(key, now);
+                failureRoute = route;
+                failureKey = key;
+            } else {
+                waitNanos = route.limiter.tryAcquire(key, now);
+            }
+            if (waitNanos > 0) {
+                reject(response, route, waitNanos);
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+
+        if (failureRoute != null && response.getStatus() == HttpStatus.UNAUTHORIZED.value()) {
+            failureRoute.limiter.tryAcquire(failureKey, System.nanoTime());
+        }
+    }
+
+    private void reject(HttpServletResponse response, Route route, long waitNanos) throws IOException {
+        route.rejections.increment();
+        long retryAfterSeconds = TimeUnit.NANOSECONDS.toSeconds(waitNanos - 1) + 1;
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"error\":\"Too many requests, please retry later\"}");
+    }
+
+    // Idle buckets are full again, so dropping them changes nothing but memory
+    @Scheduled(fixedDelayString = "${rate-limit.eviction-interval-ms:60000}")
+    public void evictIdleBuckets() {
+        long now = System.nanoTime();
+        for (Route route : routes) {
+            route.limiter.evictIdle(now);
+        }
+    }
+
+    // Decoded and normalized by the container, unlike getRequestURI
+    private static String pathWithinApplication(HttpServletRequest request) {
+        String pathInfo = request.getPathInfo();
+        return pathInfo == null ? request.getServletPath() : request.getServletPath() + pathInfo;
+    }
+
+    // Email from a login body, normalized so case variants share a bucket; null if there is none
+    private String loginEmail(byte[] body) {
+        try {
+            String email = objectMapper.readValue(body, LoginRequest.class).getEmail();
+            return email == null || email.isBlank() ? null : email.trim().toLowerCase(Locale.ROOT);
+        } catch (RuntimeException e) {
+            // Malformed or truncated JSON; the controller rejects it
+            return null;
+        }
+    }
+
+    // Signed-in user for per-user routes, client IP otherwise
+    private String clientKey(HttpServletRequest request, boolean perUser) {
+        String authHeader = perUser ? request.getHeader("Authorization") : null;
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            String email = jwtUtil.parseToken(authHeader.substring(7)).map(Claims::getSubject).orElse(null);
+            if (email != null) {
+                return email;
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    private enum KeyType {
+        CLIENT_IP,
+        USER,
+        LOGIN_EMAIL
+    }
+
+    private static final class Route {
+
+        private final String method;
+        private final String path;
+        private final KeyType keyType;
+        private final RateLimiter limiter;
+        private final Counter rejections;
+
+        private Route(String name, String method, String path, KeyType keyType, RateLimiter limiter,
+                      MeterRegistry meterRegistry) {
+            this.method = method;
+            this.path = path;
+            this.keyType = keyType;
+            this.limiter = limiter;
+            this.rejections = Counter.builder("rate-limit.rejections")
+                    .tag("route", name)
+                    .register(meterRegistry);
+        }
+
+        private boolean matches(String requestMethod, String requestPath) {
+            return path.equals(requestPath) && method.equals(requestMethod);
+        }
+    }
+
+    // Replays the buffered start of the body followed by the rest of the original stream
+    private static final class BufferedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] bufferedBody;
+
+        private BufferedBodyRequest(HttpServletRequest request, byte[] bufferedBody) {
+            super(request);
+            this.bufferedBody = bufferedBody;
+        }
+
+        private static BufferedBodyRequest wrap(HttpServletRequest request, int maxBytes) throws IOException {
+            if (request instanceof BufferedBodyRequest buffered) {
+                return buffered;
+            }
+            return new BufferedBodyRequest(request, request.getInputStream().readNBytes(maxBytes));
+        }
+
+        private byte[] getBufferedBody() {
+            return bufferedBody;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            InputStream replay = new SequenceInputStream(new ByteArrayInputStream(bufferedBody),
+                    super.getInputStream());
+            return new ServletInputStream() {
+                private boolean finished;
+
+                @Override
+                public int read() throws IOException {
+                    int b = replay.read();
+                    finished = b == -1;
+                    return b;
+                }
+
+                @Override
+                public int read(@NonNull byte[] b, int off, int len) throws IOException {
+                    int n = replay.read(b, off, len);
+                    finished = n == -1;
+                    return n;
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return finished;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException("Async body reads are not supported");
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding);
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.ecommerce.security;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token buckets for one rate-limited route, one bucket per key (client IP or user).
+ * Buckets live in a ConcurrentHashMap and each is updated under its own monitor, so contention is limited to
+ * requests with the same key. A check allocates nothing once the key's bucket exists.
+ * A bucket that has refilled completely is equivalent to no bucket, which is what evictIdle relies on.
+ * Once maxKeys buckets exist, new keys share a single overflow bucket until the sweep frees room, so a flood of
+ * fresh keys (e.g. rotating IPs) is limited like one client instead of not at all.
+ */
+public class RateLimiter {
+
+    // Not a valid IP or email, so it cannot collide with a client key
+    static final String OVERFLOW_KEY = "\u0000overflow";
+
+    private final long capacity;
+    private final double tokensPerNano;
+    private final long fullRefillNanos;
+    private final int maxKeys;
+    private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * @param capacity Burst size
+     * @param refillPerSecond Sustained rate
+     * @param maxKeys Per-key buckets kept at most; keys beyond this share the overflow bucket
+     */
+    public RateLimiter(long capacity, double refillPerSecond, int maxKeys) {
+        this.capacity = capacity;
+        this.tokensPerNano = refillPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.fullRefillNanos = (long) (capacity / tokensPerNano);
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * Take one token from the key's bucket
+     * @param key Client key
+     * @param nowNanos Current System.nanoTime()
+     * @return 0 if allowed, otherwise nanoseconds until a token is available
+     */
+    public long tryAcquire(String key, long nowNanos) {
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            // Fail closed rather than grow without bound; the sweep frees idle buckets
+            String bucketKey = buckets.size() >= maxKeys ? OVERFLOW_KEY : key;
+            bucket = buckets.computeIfAbsent(bucketKey, k -> new Bucket(capacity, nowNanos));
+        }
+        return bucket.tryAcquire(nowNanos, capacity, tokensPerNano);
+    }
+
+    /**
+     * Check the key's bucket without taking a token, for limits charged only after the outcome is known
+     * @param key Client key
+     * @param nowNanos Current System.nanoTime()
+     * @return 0 if a token is available, otherwise nanoseconds until one is
+     */
+    public long waitTime(String key, long nowNanos) {
+        Bucket bucket = buckets.get(key);
+        if (bucket == null && buckets.size() >= maxKeys) {
+            bucket = buckets.get(OVERFLOW_KEY);
+        }
+        // No bucket yet is a full one
+        return bucket == null ? 0 : bucket.waitTime(nowNanos, capacity, tokensPerNano);
+    }
+
+    /**
+     * Drop buckets that have been idle long enough to be full again
+     * @param nowNanos Current System.nanoTime()
+     * @return Number of buckets removed
+     */
+    public int evictIdle(long nowNanos) {
+        int before = buckets.size();
+        buckets.values().removeIf(bucket -> bucket.idleSince(nowNanos) >= fullRefillNanos);
+        return before - buckets.size();
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    private static final class Bucket {
+
+        private double tokens;
+        private long lastRefillNanos;
+
+        private Bucket(long capacity, long nowNanos) {
+            this.tokens = capacity;
+            this.lastRefillNanos = nowNanos;
+        }
+
+        private synchronized long tryAcquire(long nowNanos, long capacity, double tokensPerNano) {
+            refill(nowNanos, capacity, tokensPerNano);
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) / tokensPerNano);
+        }
+
+        private synchronized long waitTime(long nowNanos, long capacity, double tokensPerNano) {
+            refill(nowNanos, capacity, tokensPerNano);
+            return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / tokensPerNano);
+        }
+
+        private void refill(long nowNanos, long capacity, double tokensPerNano) {
+            long elapsed = nowNanos - lastRefillNanos;
+            if (elapsed > 0) {
+                tokens = Math.min(capacity, tokens + elapsed * tokensPerNano);
+                lastRefillNanos = nowNanos;
+            }
+        }
+
+        private synchronized long idleSince(long nowNanos) {
+            return nowNanos - lastRefillNanos;
+        }
+    }
+}
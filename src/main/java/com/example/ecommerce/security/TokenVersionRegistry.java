@@ -0,0 +1,84 @@
+package com.example.ecommerce.security;
+
+import com.example.ecommerce.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * In-memory map of user id -> current token version, used to reject revoked JWTs without a query per request.
+ * A user's version is loaded from the database on first use. Changes made on this node are applied right away;
+ * changes made on other nodes are picked up by polling for recently changed users.
+ */
+@Component
+public class TokenVersionRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenVersionRegistry.class);
+
+    // Absent users load as this, so their tokens never match
+    private static final int UNKNOWN_USER = -1;
+
+    private final UserRepository userRepository;
+    private final LoadingCache<Long, Integer> versions;
+
+    // Start of the window the next poll covers; overlaps the previous one to absorb clock skew
+    private volatile LocalDateTime pollFrom = LocalDateTime.now();
+
+    @Value("${jwt.token-version.poll-overlap-ms:5000}")
+    private long pollOverlapMs;
+
+    public TokenVersionRegistry(UserRepository userRepository,
+                                MeterRegistry meterRegistry,
+                                @Value("${jwt.token-version.max-size:100000}") long maxSize) {
+        this.userRepository = userRepository;
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build(userId -> userRepository.findTokenVersionById(userId).orElse(UNKNOWN_USER));
+        CaffeineCacheMetrics.monitor(meterRegistry, versions, "jwtTokenVersions");
+    }
+
+    /**
+     * @param userId The user ID from the token
+     * @param tokenVersion The version from the token
+     * @return Whether the token has not been revoked
+     */
+    public boolean isCurrent(Long userId, int tokenVersion) {
+        Integer current = versions.get(userId);
+        return current != null && current == tokenVersion;
+    }
+
+    /**
+     * Forget a user's version after it changed on this node; the next request reloads it
+     * @param userId The user ID
+     */
+    public void invalidate(Long userId) {
+        versions.invalidate(userId);
+    }
+
+    // Apply version changes made on any node since the last poll
+    @Scheduled(fixedDelayString = "${jwt.token-version.poll-interval-ms:10000}")
+    public void pollChanges() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime since = pollFrom.minusNanos(pollOverlapMs * 1_000_000);
+        for (UserRepository.TokenVersion changed : userRepository.findTokenVersionsChangedSince(since)) {
+            // Only users already cached matter; others load the fresh value on first use
+            Optional.ofNullable(versions.getIfPresent(changed.getId()))
+                    .filter(version -> version != changed.getTokenVersion())
+                    .ifPresent(version -> {
+                        versions.put(changed.getId(), changed.getTokenVersion());
+                        log.debug("Token version of user {} changed to {}", changed.getId(), changed.getTokenVersion());
+                    });
+        }
+        pollFrom = now;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.ecommerce.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+
+/**
+ * Business counters: orders placed (orders.checkouts), their value (orders.revenue) and stock-outs
+ * (inventory.stock-outs, tagged insufficient when a checkout is refused, depleted when one empties a product).
+ * Checkout counts are recorded after commit so rolled-back checkouts are not counted.
+ */
+@Component
+public class BusinessMetrics {
+
+    public static final String STOCK_OUT_INSUFFICIENT = "insufficient";
+    public static final String STOCK_OUT_DEPLETED = "depleted";
+
+    private final Counter checkouts;
+    private final Counter revenue;
+    private final Counter insufficientStock;
+    private final Counter depletedStock;
+
+    public BusinessMetrics(MeterRegistry meterRegistry) {
+        this.checkouts = Counter.builder("orders.checkouts")
+                .description("Orders placed from a cart")
+                .register(meterRegistry);
+        this.revenue = Counter.builder("orders.revenue")
+                .description("Total amount of orders placed")
+                .baseUnit("currency")
+                .register(meterRegistry);
+        this.insufficientStock = stockOutCounter(meterRegistry, STOCK_OUT_INSUFFICIENT);
+        this.depletedStock = stockOutCounter(meterRegistry, STOCK_OUT_DEPLETED);
+    }
+
+    /**
+     * Count a placed order once the surrounding transaction commits
+     * @param totalAmount The order total
+     */
+    public void checkoutCompleted(BigDecimal totalAmount) {
+        afterCommit(() -> {
+            checkouts.increment();
+            revenue.increment(totalAmount.doubleValue());
+        });
+    }
+
+    /**
+     * Count a checkout refused because a product did not have the requested quantity
+     */
+    public void stockInsufficient() {
+        insufficientStock.increment();
+    }
+
+    /**
+     * Count a product whose stock reached zero, once the surrounding transaction commits
+     */
+    public void stockDepleted() {
+        afterCommit(depletedStock::increment);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static Counter stockOutCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("inventory.stock-outs")
+                .description("Products out of stock at checkout")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
@@ -52,7 +52,7 @@ public class CartService {
         return mapToResponse(cart);
     }
 
-    // Get or create cart for guest (session-based)
+    // Get or create cart for guest (keyed by the guest id from the signed cart token)
     public CartResponse getOrCreateGuestCart(String sessionId) {
         final String finalSessionId = (sessionId == null || sessionId.isEmpty())
                 ? UUID.randomUUID().toString()
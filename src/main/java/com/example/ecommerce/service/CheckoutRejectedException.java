@@ -0,0 +1,9 @@
+package com.example.ecommerce.service;
+
+// Checkout refused for a reason retrying the same request will not change (e.g. empty cart, insufficient stock)
+public class CheckoutRejectedException extends RuntimeException {
+
+    public CheckoutRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.ecommerce.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Count-based circuit breaker.
+ * CLOSED: calls pass; the outcomes of the last windowSize calls are tracked and the breaker opens once the
+ * failure rate reaches the threshold (after at least minimumCalls). OPEN: calls are rejected for openDuration.
+ * HALF_OPEN: up to halfOpenMaxCalls probes pass; all succeeding closes the breaker, any failure reopens it.
+ * Each permission remembers the state period it was granted in; an outcome reported after the breaker has
+ * moved on (e.g. a slow call admitted while CLOSED that ends during HALF_OPEN) is ignored.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openDurationNanos;
+    private final int halfOpenMaxCalls;
+    private final LongSupplier nanoClock;
+
+    // Ring buffer of recent outcomes in CLOSED state; true = failure
+    private final boolean[] outcomes;
+    private int nextIndex;
+    private int recordedCalls;
+    private int recordedFailures;
+
+    private State state = State.CLOSED;
+    // Incremented on every state change; permissions from an earlier period are stale
+    private long period;
+    private long openedAt;
+    private int halfOpenPermitted;
+    private int halfOpenSucceeded;
+
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold,
+                          long openDurationMs, int halfOpenMaxCalls) {
+        this(windowSize, minimumCalls, failureRateThreshold, openDurationMs, halfOpenMaxCalls, System::nanoTime);
+    }
+
+    // Clock injectable for tests
+    CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold,
+                   long openDurationMs, int halfOpenMaxCalls, LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        this.windowSize = windowSize;
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDurationNanos = TimeUnit.MILLISECONDS.toNanos(openDurationMs);
+        this.halfOpenMaxCalls = halfOpenMaxCalls;
+        this.outcomes = new boolean[windowSize];
+    }
+
+    /**
+     * Must be called before each call; a permitted call must report its outcome with the returned permission
+     * @return The permission, or null if the call is rejected
+     */
+    public synchronized Permission tryAcquirePermission() {
+        if (state == State.OPEN) {
+            if (nanoClock.getAsLong() - openedAt < openDurationNanos) {
+                return null;
+            }
+            transitionTo(State.HALF_OPEN);
+            halfOpenPermitted = 0;
+            halfOpenSucceeded = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermitted >= halfOpenMaxCalls) {
+                return null;
+            }
+            halfOpenPermitted++;
+        }
+        return new Permission(state, period);
+    }
+
+    public synchronized void onSuccess(Permission permission) {
+        if (isStale(permission)) {
+            return;
+        }
+        switch (state) {
+            case HALF_OPEN -> {
+                halfOpenSucceeded++;
+                if (halfOpenSucceeded >= halfOpenMaxCalls) {
+                    close();
+                }
+            }
+            case CLOSED -> record(false);
+            case OPEN -> {
+                // Not reachable: permissions are never granted while OPEN
+            }
+        }
+    }
+
+    public synchronized void onFailure(Permission permission) {
+        if (isStale(permission)) {
+            return;
+        }
+        switch (state) {
+            case HALF_OPEN -> open();
+            case CLOSED -> {
+                record(true);
+                if (recordedCalls >= minimumCalls
+                        && recordedFailures * 100.0 / recordedCalls >= failureRateThreshold) {
+                    open();
+                }
+            }
+            case OPEN -> {
+                // Not reachable: permissions are never granted while OPEN
+            }
+        }
+    }
+
+    // The call ended without telling us anything about the provider (e.g. the caller was interrupted)
+    public synchronized void onIgnored(Permission permission) {
+        if (!isStale(permission) && state == State.HALF_OPEN && halfOpenPermitted > halfOpenSucceeded) {
+            halfOpenPermitted--;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    // Time until an OPEN breaker lets probes through, in milliseconds
+    public synchronized long getRemainingOpenMillis() {
+        if (state != State.OPEN) {
+            return 0;
+        }
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(openDurationNanos - (nanoClock.getAsLong() - openedAt)));
+    }
+
+    private boolean isStale(Permission permission) {
+        return permission.period != period;
+    }
+
+    private void record(boolean failure) {
+        if (recordedCalls == windowSize) {
+            if (outcomes[nextIndex]) {
+                recordedFailures--;
+            }
+        } else {
+            recordedCalls++;
+        }
+        outcomes[nextIndex] = failure;
+        if (failure) {
+            recordedFailures++;
+        }
+        nextIndex = (nextIndex + 1) % windowSize;
+    }
+
+    private void open() {
+        transitionTo(State.OPEN);
+        openedAt = nanoClock.getAsLong();
+        resetWindow();
+    }
+
+    private void close() {
+        transitionTo(State.CLOSED);
+        resetWindow();
+    }
+
+    private void transitionTo(State next) {
+        state = next;
+        period++;
+    }
+
+    private void resetWindow() {
+        nextIndex = 0;
+        recordedCalls = 0;
+        recordedFailures = 0;
+    }
+
+    // Granted call; carries the state period it was admitted in
+    public static final class Permission {
+
+        private final State state;
+        private final long period;
+
+        private Permission(State state, long period) {
+            this.state = state;
+            this.period = period;
+        }
+
+        public State getState() {
+            return state;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.ecommerce.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Wraps the active payment provider so a degraded provider cannot tie up request threads:
+ * every call has a timeout, a circuit breaker rejects calls while the provider is failing, and a
+ * bulkhead caps concurrent calls. Rejections surface as PaymentGatewayUnavailableException (503 + Retry-After).
+ */
+@Component
+@Primary
+public class GuardedPaymentGateway implements PaymentGateway {
+
+    private static final Logger log = LoggerFactory.getLogger(GuardedPaymentGateway.class);
+
+    private final PaymentGateway delegate;
+    private final CircuitBreaker circuitBreaker;
+    private final Semaphore bulkhead;
+    private final int maxConcurrentCalls;
+
+    // Calls run here so the caller can stop waiting at the timeout
+    private final ExecutorService callExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Counter circuitOpenRejections;
+    private final Counter bulkheadRejections;
+    private final Counter timeouts;
+
+    @Value("${payment.gateway.timeout.create-ms:5000}")
+    private long createTimeoutMs;
+
+    @Value("${payment.gateway.timeout.retrieve-ms:3000}")
+    private long retrieveTimeoutMs;
+
+    @Value("${payment.gateway.timeout.cancel-ms:3000}")
+    private long cancelTimeoutMs;
+
+    public GuardedPaymentGateway(@Qualifier(PaymentGateway.PROVIDER) PaymentGateway delegate,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${payment.gateway.bulkhead.max-concurrent-calls:50}") int maxConcurrentCalls,
+                                 @Value("${payment.gateway.circuit-breaker.window-size:20}") int windowSize,
+                                 @Value("${payment.gateway.circuit-breaker.minimum-calls:10}") int minimumCalls,
+                                 @Value("${payment.gateway.circuit-breaker.failure-rate-threshold:50}") double failureRateThreshold,
+                                 @Value("${payment.gateway.circuit-breaker.open-duration-ms:30000}") long openDurationMs,
+                                 @Value("${payment.gateway.circuit-breaker.half-open-max-calls:3}") int halfOpenMaxCalls) {
+        this.delegate = delegate;
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.bulkhead = new Semaphore(maxConcurrentCalls);
+        this.circuitBreaker = new CircuitBreaker(windowSize, minimumCalls, failureRateThreshold,
+                openDurationMs, halfOpenMaxCalls);
+
+        // 0 = closed, 1 = open, 2 = half-open
+        Gauge.builder("payment.gateway.circuit.state", circuitBreaker, breaker -> breaker.getState().ordinal())
+                .description("Payment gateway circuit breaker state (0 closed, 1 open, 2 half-open)")
+                .register(meterRegistry);
+        Gauge.builder("payment.gateway.bulkhead.in-use", bulkhead, b -> maxConcurrentCalls - b.availablePermits())
+                .description("Payment gateway calls in flight")
+                .register(meterRegistry);
+        this.circuitOpenRejections = Counter.builder("payment.gateway.rejections")
+                .tag("reason", "circuit-open")
+                .register(meterRegistry);
+        this.bulkheadRejections = Counter.builder("payment.gateway.rejections")
+                .tag("reason", "bulkhead-full")
+                .register(meterRegistry);
+        this.timeouts = Counter.builder("payment.gateway.timeouts")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public PaymentGatewayIntent createIntent(long amountInCents, String currency, Map<String, String> metadata,
+                                             String description) {
+        return call("create", createTimeoutMs,
+                () -> delegate.createIntent(amountInCents, currency, metadata, description));
+    }
+
+    @Override
+    public PaymentGatewayIntent retrieveIntent(String paymentIntentId) {
+        return call("retrieve", retrieveTimeoutMs, () -> delegate.retrieveIntent(paymentIntentId));
+    }
+
+    @Override
+    public PaymentGatewayIntent cancelIntent(String paymentIntentId) {
+        return call("cancel", cancelTimeoutMs, () -> delegate.cancelIntent(paymentIntentId));
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        callExecutor.shutdownNow();
+    }
+
+    private PaymentGatewayIntent call(String operation, long timeoutMs, Supplier<PaymentGatewayIntent> action) {
+        // Bulkhead first, so a rejected call never takes one of the breaker's half-open probe slots
+        if (!bulkhead.tryAcquire()) {
+            bulkheadRejections.increment();
+            throw new PaymentGatewayUnavailableException("Payment gateway is busy", 1);
+        }
+        CircuitBreaker.Permission permission = circuitBreaker.tryAcquirePermission();
+        if (permission == null) {
+            bulkhead.release();
+            circuitOpenRejections.increment();
+            long retryAfterSeconds = Math.max(1, TimeUnit.MILLISECONDS.toSeconds(
+                    circuitBreaker.getRemainingOpenMillis() + 999));
+            throw new PaymentGatewayUnavailableException("Payment gateway is unavailable", retryAfterSeconds);
+        }
+
+        // The permit is returned when the provider call really ends, not when the caller gives up on it,
+        // so the bulkhead bounds actual in-flight calls
+        Future<PaymentGatewayIntent> future;
+        try {
+            future = callExecutor.submit(() -> {
+                try {
+                    return action.get();
+                } finally {
+                    bulkhead.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            bulkhead.release();
+            circuitBreaker.onIgnored(permission);
+            throw new PaymentGatewayUnavailableException("Payment gateway is shutting down", 1);
+        }
+
+        try {
+            PaymentGatewayIntent result = future.get(timeoutMs, TimeUnit.MILLISECONDS);
+            circuitBreaker.onSuccess(permission);
+            return result;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timeouts.increment();
+            circuitBreaker.onFailure(permission);
+            log.warn("Payment gateway {} call timed out after {} ms", operation, timeoutMs);
+            throw new PaymentGatewayUnavailableException("Payment gateway timed out", 1);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof PaymentGatewayException gatewayException) {
+                // A rejected request still means the provider answered
+                if (gatewayException.isTransientFailure()) {
+                    circuitBreaker.onFailure(permission);
+                } else {
+                    circuitBreaker.onSuccess(permission);
+                }
+                throw gatewayException;
+            }
+            circuitBreaker.onFailure(permission);
+            throw new PaymentGatewayException("Payment gateway error: " + cause.getMessage(), cause, true);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            circuitBreaker.onIgnored(permission);
+            throw new PaymentGatewayException("Interrupted while waiting for the payment gateway", e);
+        }
+    }
+}
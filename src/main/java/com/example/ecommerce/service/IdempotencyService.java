@@ -0,0 +1,228 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.model.IdempotencyRecord;
+import com.example.ecommerce.repository.IdempotencyRecordRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.ObjectMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+@Service
+public class IdempotencyService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final int COMPLETE_ATTEMPTS = 3;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final ObjectMapper objectMapper;
+
+    // Requests executing on this node, so duplicates arriving here wait on the original instead of polling
+    private final Map<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+
+    @Value("${idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    @Value("${idempotency.lease-ms:60000}")
+    private long leaseMs;
+
+    @Value("${idempotency.wait-timeout-ms:10000}")
+    private long waitTimeoutMs;
+
+    @Value("${idempotency.poll-interval-ms:100}")
+    private long pollIntervalMs;
+
+    @Value("${idempotency.cleanup-batch-size:1000}")
+    private int cleanupBatchSize;
+
+    public IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository, ObjectMapper objectMapper) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Run an action at most once per user and idempotency key, replaying the stored response to retries
+     * @param userEmail The authenticated user
+     * @param idempotencyKey Value of the Idempotency-Key header; when null the action simply runs
+     * @param operation Name of the endpoint, stored with the key
+     * @param request The request body, hashed to detect a key reused with a different payload
+     * @param action The work to perform; it must commit its own transaction before returning
+     * @return The action's response, or the stored response of the first execution
+     */
+    public ResponseEntity<?> execute(String userEmail, String idempotencyKey, String operation,
+                                     Object request, Supplier<ResponseEntity<?>> action) {
+        if (idempotencyKey == null) {
+            return action.get();
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", HEADER + " must be 1-" + MAX_KEY_LENGTH + " characters"));
+        }
+
+        String requestHash = hash(objectMapper.writeValueAsString(request));
+        String flightKey = userEmail + "\n" + idempotencyKey;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitTimeoutMs);
+
+        while (true) {
+            LocalDateTime now = LocalDateTime.now();
+            if (idempotencyRecordRepository.tryClaim(userEmail, idempotencyKey, operation, requestHash,
+                    now, now.plusNanos(TimeUnit.MILLISECONDS.toNanos(leaseMs))) == 1) {
+                return executeClaimed(userEmail, idempotencyKey, flightKey, action);
+            }
+
+            Optional<IdempotencyRecord> existing =
+                    idempotencyRecordRepository.findByUserEmailAndIdempotencyKey(userEmail, idempotencyKey);
+            if (existing.isEmpty()) {
+                // Released or purged between our insert and read; try to claim again
+                continue;
+            }
+
+            IdempotencyRecord record = existing.get();
+            if (!record.getOperation().equals(operation) || !record.getRequestHash().equals(requestHash)) {
+                return ResponseEntity.unprocessableEntity()
+                        .body(Map.of("error", HEADER + " was already used for a different request"));
+            }
+            if (record.isCompleted()) {
+                return replay(record);
+            }
+            if (record.isExpired(now) && idempotencyRecordRepository.tryTakeOver(record.getId(), now,
+                    now.plusNanos(TimeUnit.MILLISECONDS.toNanos(leaseMs))) == 1) {
+                return executeClaimed(userEmail, idempotencyKey, flightKey, action);
+            }
+
+            long remainingNanos = deadline - System.nanoTime();
+            if (remainingNanos <= 0) {
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body(Map.of("error", "A request with this " + HEADER + " is still in progress"));
+            }
+            awaitFirstExecution(flightKey, remainingNanos);
+        }
+    }
+
+    private ResponseEntity<?> executeClaimed(String userEmail, String idempotencyKey, String flightKey,
+                                             Supplier<ResponseEntity<?>> action) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        inFlight.put(flightKey, done);
+        try {
+            ResponseEntity<?> response;
+            try {
+                response = action.get();
+            } catch (RuntimeException e) {
+                // The action failed, so nothing of it committed; let the client's retry run the request again
+                idempotencyRecordRepository.release(userEmail, idempotencyKey);
+                throw e;
+            }
+            if (response.getStatusCode().is5xxServerError()) {
+                // Server-side failures are not final; let the client's retry run the request again
+                idempotencyRecordRepository.release(userEmail, idempotencyKey);
+            } else {
+                storeResponse(userEmail, idempotencyKey, response);
+            }
+            return response;
+        } finally {
+            inFlight.remove(flightKey, done);
+            done.complete(null);
+        }
+    }
+
+    // The action has committed, so the key is never released here: storing the response is retried, and if it keeps
+    // failing the key stays IN_PROGRESS, so retries get 409 for the rest of the lease instead of running it again
+    private void storeResponse(String userEmail, String idempotencyKey, ResponseEntity<?> response) {
+        String body = response.getBody() == null ? null : objectMapper.writeValueAsString(response.getBody());
+        for (int attempt = 1; ; attempt++) {
+            try {
+                idempotencyRecordRepository.complete(userEmail, idempotencyKey, response.getStatusCode().value(),
+                        body, LocalDateTime.now().plusHours(ttlHours));
+                return;
+            } catch (RuntimeException e) {
+                if (attempt >= COMPLETE_ATTEMPTS) {
+                    log.error("Could not store the response for idempotency key {}; it stays in progress until "
+                            + "its lease expires", idempotencyKey, e);
+                    return;
+                }
+                log.warn("Storing the response for idempotency key {} failed (attempt {}), retrying",
+                        idempotencyKey, attempt, e);
+                try {
+                    Thread.sleep(pollIntervalMs * attempt);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    // Waits on the local execution if there is one, otherwise the first request runs on another node: poll
+    private void awaitFirstExecution(String flightKey, long remainingNanos) {
+        CompletableFuture<Void> local = inFlight.get(flightKey);
+        try {
+            if (local != null) {
+                local.get(remainingNanos, TimeUnit.NANOSECONDS);
+            } else {
+                Thread.sleep(Math.min(pollIntervalMs, TimeUnit.NANOSECONDS.toMillis(remainingNanos) + 1));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for idempotent request");
+        } catch (ExecutionException | TimeoutException e) {
+            // Re-read the record; the loop decides between replay, retry and timeout
+        }
+    }
+
+    private ResponseEntity<?> replay(IdempotencyRecord record) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(record.getResponseStatus())
+                .header(REPLAYED_HEADER, "true");
+        if (record.getResponseBody() == null) {
+            return builder.build();
+        }
+        return builder.contentType(MediaType.APPLICATION_JSON).body(record.getResponseBody());
+    }
+
+    // Purge expired keys in small batches so the delete never holds long locks
+    @Scheduled(fixedDelayString = "${idempotency.cleanup-interval-ms:600000}")
+    public void purgeExpiredRecords() {
+        LocalDateTime now = LocalDateTime.now();
+        long purged = 0;
+        int deleted;
+        do {
+            deleted = idempotencyRecordRepository.deleteExpired(now, cleanupBatchSize);
+            purged += deleted;
+        } while (deleted == cleanupBatchSize);
+
+        if (purged > 0) {
+            log.info("Purged {} expired idempotency records", purged);
+        }
+    }
+
+    private static String hash(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
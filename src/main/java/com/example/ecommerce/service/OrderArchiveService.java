@@ -0,0 +1,93 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.model.OrderStatus;
+import com.example.ecommerce.repository.ArchivedOrderRepository;
+import com.example.ecommerce.repository.OrderItemRepository;
+import com.example.ecommerce.repository.OrderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Service
+public class OrderArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderArchiveService.class);
+
+    // Only orders that can no longer change are moved to cold storage
+    private static final List<String> ARCHIVABLE_STATUSES = List.of(
+            OrderStatus.DELIVERED.name(),
+            OrderStatus.CANCELLED.name(),
+            OrderStatus.REFUNDED.name()
+    );
+
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${orders.archive.enabled:false}")
+    private boolean enabled;
+
+    @Value("${orders.archive.retention-days:180}")
+    private int retentionDays;
+
+    @Value("${orders.archive.batch-size:500}")
+    private int batchSize;
+
+    public OrderArchiveService(OrderRepository orderRepository,
+                               OrderItemRepository orderItemRepository,
+                               ArchivedOrderRepository archivedOrderRepository,
+                               PlatformTransactionManager transactionManager) {
+        this.orderRepository = orderRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.archivedOrderRepository = archivedOrderRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // Move finished orders older than the retention window out of the hot tables, one short transaction per batch
+    @Scheduled(cron = "${orders.archive.cron:0 30 3 * * *}")
+    public void archiveOldOrders() {
+        if (!enabled) {
+            return;
+        }
+
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        long archived = 0;
+        while (true) {
+            Integer moved = transactionTemplate.execute(status -> archiveBatch(cutoff));
+            if (moved == null || moved == 0) {
+                break;
+            }
+            archived += moved;
+            if (moved < batchSize) {
+                break;
+            }
+        }
+
+        if (archived > 0) {
+            log.info("Archived {} orders created before {}", archived, cutoff);
+        }
+    }
+
+    private int archiveBatch(LocalDateTime cutoff) {
+        List<Long> orderIds = orderRepository.lockIdsForArchival(ARCHIVABLE_STATUSES, cutoff, batchSize);
+        if (orderIds.isEmpty()) {
+            return 0;
+        }
+
+        // Parents first on the way in, children first on the way out, so foreign keys hold throughout
+        archivedOrderRepository.copyFromOrders(orderIds, LocalDateTime.now());
+        archivedOrderRepository.copyItemsFromOrders(orderIds);
+        orderItemRepository.deleteByOrderIdIn(orderIds);
+        orderRepository.deleteByIdIn(orderIds);
+
+        return orderIds.size();
+    }
+}
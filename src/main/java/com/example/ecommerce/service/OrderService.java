@@ -1,54 +1,91 @@
 package com.example.ecommerce.service;
 
+import com.example.ecommerce.dto.BulkOrderStatusResponse;
+import com.example.ecommerce.dto.BulkOrderStatusResult;
 import com.example.ecommerce.dto.CheckoutRequest;
 import com.example.ecommerce.dto.OrderItemResponse;
 import com.example.ecommerce.dto.OrderResponse;
+import com.example.ecommerce.dto.OrderSearchCriteria;
+import com.example.ecommerce.dto.OrderSearchResponse;
+import com.example.ecommerce.dto.OrderSummaryResponse;
+import com.example.ecommerce.event.OrderStatusChangedEvent;
 import com.example.ecommerce.model.*;
 import com.example.ecommerce.repository.*;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class OrderService {
 
+    private static final int DEFAULT_SEARCH_PAGE_SIZE = 50;
+    private static final int MAX_SEARCH_PAGE_SIZE = 200;
+    private static final Sort SEARCH_SORT = Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"));
+
     private final OrderRepository orderRepository;
     private final OrderItemRepository orderItemRepository;
     private final CartRepository cartRepository;
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
+    private final OutboxService outboxService;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final ArchivedOrderItemRepository archivedOrderItemRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BusinessMetrics businessMetrics;
 
     public OrderService(OrderRepository orderRepository,
                        OrderItemRepository orderItemRepository,
                        CartRepository cartRepository,
                        ProductRepository productRepository,
-                       UserRepository userRepository) {
+                       UserRepository userRepository,
+                       OutboxService outboxService,
+                       ArchivedOrderRepository archivedOrderRepository,
+                       ArchivedOrderItemRepository archivedOrderItemRepository,
+                       ApplicationEventPublisher eventPublisher,
+                       BusinessMetrics businessMetrics) {
         this.orderRepository = orderRepository;
         this.orderItemRepository = orderItemRepository;
         this.cartRepository = cartRepository;
         this.productRepository = productRepository;
         this.userRepository = userRepository;
+        this.outboxService = outboxService;
+        this.archivedOrderRepository = archivedOrderRepository;
+        this.archivedOrderItemRepository = archivedOrderItemRepository;
+        this.eventPublisher = eventPublisher;
+        this.businessMetrics = businessMetrics;
     }
 
-    // Create order from cart (checkout)
+    // Create order from cart (checkout); business rejections throw CheckoutRejectedException, anything else is
+    // an infrastructure failure that a retry may get past
     public OrderResponse createOrderFromCart(String email, CheckoutRequest request) {
         User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+                .orElseThrow(() -> new CheckoutRejectedException("User not found"));
 
         Cart cart = cartRepository.findByUser(user)
-                .orElseThrow(() -> new RuntimeException("Cart not found"));
+                .orElseThrow(() -> new CheckoutRejectedException("Cart not found"));
 
         if (cart.isEmpty()) {
-            throw new RuntimeException("Cannot create order from empty cart");
+            throw new CheckoutRejectedException("Cannot create order from empty cart");
         }
 
         // Generate unique order number
@@ -84,7 +121,8 @@ public class OrderService {
 
             // Check stock availability
             if (product.getStockQuantity() < cartItem.getQuantity()) {
-                throw new RuntimeException("Insufficient stock for product: " + product.getName());
+                businessMetrics.stockInsufficient();
+                throw new CheckoutRejectedException("Insufficient stock for product: " + product.getName());
             }
 
             // Create order item
@@ -98,6 +136,9 @@ public class OrderService {
             // Reduce stock
             product.setStockQuantity(product.getStockQuantity() - cartItem.getQuantity());
             productRepository.save(product);
+            if (product.getStockQuantity() == 0) {
+                businessMetrics.stockDepleted();
+            }
         }
 
         // Calculate totals
@@ -110,23 +151,30 @@ public class OrderService {
         cart.clearItems();
         cartRepository.save(cart);
 
+        // Follow-up work (emails, analytics, ERP) runs from the outbox after commit
+        outboxService.record("Order", order.getId(), OutboxEvent.ORDER_CREATED, orderEventPayload(order));
+        businessMetrics.checkoutCompleted(order.getTotalAmount());
+
         return mapToResponse(order);
     }
 
-    // Get order by ID
+    // Get order by ID, falling back to the archive for old orders
     @Transactional(readOnly = true)
     public OrderResponse getOrderById(Long orderId) {
-        Order order = orderRepository.findById(orderId)
+        return orderRepository.findById(orderId)
+                .map(this::mapToResponse)
+                .or(() -> archivedOrderRepository.findByIdWithItems(orderId).map(this::mapArchivedToResponse))
                 .orElseThrow(() -> new RuntimeException("Order not found"));
-        return mapToResponse(order);
     }
 
-    // Get order by order number
+    // Get order by order number, falling back to the archive for old orders
     @Transactional(readOnly = true)
     public OrderResponse getOrderByOrderNumber(String orderNumber) {
-        Order order = orderRepository.findByOrderNumber(orderNumber)
+        return orderRepository.findByOrderNumber(orderNumber)
+                .map(this::mapToResponse)
+                .or(() -> archivedOrderRepository.findByOrderNumberWithItems(orderNumber)
+                        .map(this::mapArchivedToResponse))
                 .orElseThrow(() -> new RuntimeException("Order not found"));
-        return mapToResponse(order);
     }
 
     // Get user's orders
@@ -135,22 +183,106 @@ public class OrderService {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        return orderRepository.findByUserId(user.getId(), pageable)
-                .map(this::mapToResponse);
+        return mapPageToResponse(orderRepository.findByUserId(user.getId(), pageable));
+    }
+
+    // Get user's order history as lightweight summaries (single projection query)
+    @Transactional(readOnly = true)
+    public Page<OrderSummaryResponse> getUserOrderSummaries(String email, Pageable pageable) {
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        return orderRepository.findSummariesByUserId(user.getId(), pageable);
+    }
+
+    // Get user's archived orders
+    @Transactional(readOnly = true)
+    public Page<OrderResponse> getUserArchivedOrders(String email, Pageable pageable) {
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        Page<ArchivedOrder> orders = archivedOrderRepository.findByUserId(user.getId(), pageable);
+        List<Long> orderIds = orders.getContent().stream()
+                .map(ArchivedOrder::getId)
+                .collect(Collectors.toList());
+
+        Map<Long, List<ArchivedOrderItem>> itemsByOrderId = orderIds.isEmpty()
+                ? Map.of()
+                : archivedOrderItemRepository.findByOrderIdInWithProduct(orderIds).stream()
+                        .collect(Collectors.groupingBy(item -> item.getOrder().getId()));
+
+        return orders.map(order -> mapArchivedToResponse(order,
+                itemsByOrderId.getOrDefault(order.getId(), List.of())));
     }
 
     // Get all orders (admin)
     @Transactional(readOnly = true)
     public Page<OrderResponse> getAllOrders(Pageable pageable) {
-        return orderRepository.findAll(pageable)
-                .map(this::mapToResponse);
+        return mapPageToResponse(orderRepository.findAll(pageable));
     }
 
     // Get orders by status (admin)
     @Transactional(readOnly = true)
     public Page<OrderResponse> getOrdersByStatus(OrderStatus status, Pageable pageable) {
-        return orderRepository.findByStatus(status, pageable)
-                .map(this::mapToResponse);
+        return mapPageToResponse(orderRepository.findByStatus(status, pageable));
+    }
+
+    // Multi-criteria order search (admin), keyset-paginated on (createdAt, id) descending
+    @Transactional(readOnly = true)
+    public OrderSearchResponse searchOrders(OrderSearchCriteria criteria) {
+        int size = criteria.getSize() == null ? DEFAULT_SEARCH_PAGE_SIZE : criteria.getSize();
+        if (size < 1 || size > MAX_SEARCH_PAGE_SIZE) {
+            throw new IllegalArgumentException("Size must be between 1 and " + MAX_SEARCH_PAGE_SIZE);
+        }
+        if (criteria.getCreatedFrom() != null && criteria.getCreatedTo() != null
+                && criteria.getCreatedFrom().isAfter(criteria.getCreatedTo())) {
+            throw new IllegalArgumentException("createdFrom must not be after createdTo");
+        }
+        if (criteria.getMinTotal() != null && criteria.getMaxTotal() != null
+                && criteria.getMinTotal().compareTo(criteria.getMaxTotal()) > 0) {
+            throw new IllegalArgumentException("minTotal must not be greater than maxTotal");
+        }
+
+        // Resolve the email up front so the order query filters on the indexed user_id column
+        Long userId = null;
+        if (criteria.getUserEmail() != null && !criteria.getUserEmail().isBlank()) {
+            Optional<User> user = userRepository.findByEmail(criteria.getUserEmail());
+            if (user.isEmpty()) {
+                return new OrderSearchResponse(List.of(), null);
+            }
+            userId = user.get().getId();
+        }
+
+        LocalDateTime afterCreatedAt = null;
+        Long afterId = null;
+        if (criteria.getCursor() != null && !criteria.getCursor().isBlank()) {
+            String[] cursor = decodeSearchCursor(criteria.getCursor());
+            try {
+                afterCreatedAt = LocalDateTime.parse(cursor[0]);
+                afterId = Long.parseLong(cursor[1]);
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+
+        // Fetch one extra row to learn whether another page exists, without a COUNT query
+        List<Order> orders = orderRepository.findBy(
+                OrderSpecifications.search(criteria, userId, afterCreatedAt, afterId),
+                query -> query.sortBy(SEARCH_SORT).limit(size + 1).all());
+
+        String nextCursor = null;
+        if (orders.size() > size) {
+            orders = orders.subList(0, size);
+            Order last = orders.get(size - 1);
+            nextCursor = encodeSearchCursor(last.getCreatedAt(), last.getId());
+        }
+
+        Map<Long, List<OrderItem>> itemsByOrderId = loadItemsByOrderId(orders);
+        List<OrderResponse> responses = orders.stream()
+                .map(order -> mapToResponse(order, itemsByOrderId.getOrDefault(order.getId(), List.of())))
+                .collect(Collectors.toList());
+
+        return new OrderSearchResponse(responses, nextCursor);
     }
 
     // Update order status (admin)
@@ -182,9 +314,54 @@ public class OrderService {
         }
 
         order = orderRepository.save(order);
+        outboxService.record("Order", order.getId(), OutboxEvent.ORDER_STATUS_CHANGED, orderEventPayload(order));
+        eventPublisher.publishEvent(OrderStatusChangedEvent.from(order));
         return mapToResponse(order);
     }
 
+    // Bulk status transition (admin): one guarded UPDATE for the whole set, outcome reported per order
+    public BulkOrderStatusResponse bulkUpdateOrderStatus(List<Long> orderIds, OrderStatus newStatus, String reason) {
+        Set<OrderStatus> allowedFrom = newStatus.allowedPreviousStatuses();
+        if (allowedFrom.isEmpty()) {
+            throw new IllegalArgumentException("Orders cannot be moved to status: " + newStatus);
+        }
+
+        List<Long> requestedIds = orderIds.stream().distinct().collect(Collectors.toList());
+        List<String> allowedFromNames = allowedFrom.stream().map(Enum::name).collect(Collectors.toList());
+        String cancellationReason = reason != null ? reason : "Cancelled by admin";
+
+        Set<Long> updatedIds = new HashSet<>(orderRepository.transitionStatus(
+                requestedIds, allowedFromNames, newStatus.name(), LocalDateTime.now(), cancellationReason));
+
+        // Restore stock for cancelled/refunded orders in one aggregated UPDATE
+        if (newStatus.restoresStock() && !updatedIds.isEmpty()) {
+            productRepository.restoreStockForOrders(updatedIds);
+        }
+
+        outboxService.recordOrderStatusChanges(updatedIds);
+
+        // Read back after the UPDATE: moved orders feed the status stream, the rest explain why they were skipped
+        Map<Long, Order> ordersById = orderRepository.findAllById(requestedIds).stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
+        updatedIds.forEach(id -> eventPublisher.publishEvent(OrderStatusChangedEvent.from(ordersById.get(id))));
+
+        List<BulkOrderStatusResult> results = requestedIds.stream()
+                .map(id -> {
+                    if (updatedIds.contains(id)) {
+                        return new BulkOrderStatusResult(id, BulkOrderStatusResult.UPDATED, newStatus.name());
+                    }
+                    Order skipped = ordersById.get(id);
+                    if (skipped == null) {
+                        return new BulkOrderStatusResult(id, BulkOrderStatusResult.NOT_FOUND, null);
+                    }
+                    return new BulkOrderStatusResult(id, BulkOrderStatusResult.INVALID_TRANSITION,
+                            skipped.getStatus().name());
+                })
+                .collect(Collectors.toList());
+
+        return new BulkOrderStatusResponse(newStatus.name(), results);
+    }
+
     // Cancel order
     public OrderResponse cancelOrder(Long orderId, String reason) {
         Order order = orderRepository.findById(orderId)
@@ -200,6 +377,8 @@ public class OrderService {
         restoreStock(order);
 
         order = orderRepository.save(order);
+        outboxService.record("Order", order.getId(), OutboxEvent.ORDER_STATUS_CHANGED, orderEventPayload(order));
+        eventPublisher.publishEvent(OrderStatusChangedEvent.from(order));
         return mapToResponse(order);
     }
 
@@ -223,6 +402,8 @@ public class OrderService {
         restoreStock(order);
 
         order = orderRepository.save(order);
+        outboxService.record("Order", order.getId(), OutboxEvent.ORDER_STATUS_CHANGED, orderEventPayload(order));
+        eventPublisher.publishEvent(OrderStatusChangedEvent.from(order));
         return mapToResponse(order);
     }
 
@@ -235,8 +416,21 @@ public class OrderService {
         }
     }
 
-    // Generate unique order number
-    private String generateOrderNumber() {
+    // Helper method to build the outbox payload for an order event
+    private Map<String, Object> orderEventPayload(Order order) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("orderId", order.getId());
+        payload.put("orderNumber", order.getOrderNumber());
+        payload.put("userId", order.getUser().getId());
+        payload.put("status", order.getStatus().name());
+        payload.put("paymentStatus", order.getPaymentStatus());
+        payload.put("totalAmount", order.getTotalAmount());
+        payload.put("cancellationReason", order.getCancellationReason());
+        return payload;
+    }
+
+    // Generate unique order number (package-private for HotPathBenchmark)
+    String generateOrderNumber() {
         String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
         String random = UUID.randomUUID().toString().substring(0, 8).toUpperCase();
         String orderNumber = "ORD-" + timestamp + "-" + random;
@@ -250,8 +444,50 @@ public class OrderService {
         return orderNumber;
     }
 
+    // Helper method to map a page of orders, loading the items of every order on the page in one query
+    private Page<OrderResponse> mapPageToResponse(Page<Order> orders) {
+        Map<Long, List<OrderItem>> itemsByOrderId = loadItemsByOrderId(orders.getContent());
+
+        return orders.map(order -> mapToResponse(order, itemsByOrderId.getOrDefault(order.getId(), List.of())));
+    }
+
+    private Map<Long, List<OrderItem>> loadItemsByOrderId(List<Order> orders) {
+        List<Long> orderIds = orders.stream()
+                .map(Order::getId)
+                .collect(Collectors.toList());
+
+        return orderIds.isEmpty()
+                ? Map.of()
+                : orderItemRepository.findByOrderIdInWithProduct(orderIds).stream()
+                        .collect(Collectors.groupingBy(item -> item.getOrder().getId()));
+    }
+
+    // Search cursors are the last row's sort key, base64url-encoded so clients treat them as opaque
+    private String encodeSearchCursor(LocalDateTime createdAt, Long id) {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeSearchCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return parts;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
     // Helper method to map Order to OrderResponse
     private OrderResponse mapToResponse(Order order) {
+        return mapToResponse(order, order.getItems());
+    }
+
+    // Package-private for HotPathBenchmark
+    OrderResponse mapToResponse(Order order, List<OrderItem> items) {
         OrderResponse response = new OrderResponse();
 
         response.setId(order.getId());
@@ -292,7 +528,7 @@ public class OrderService {
         response.setNotes(order.getNotes());
 
         // Items
-        List<OrderItemResponse> itemResponses = order.getItems().stream()
+        List<OrderItemResponse> itemResponses = items.stream()
                 .map(this::mapItemToResponse)
                 .collect(Collectors.toList());
         response.setItems(itemResponses);
@@ -315,5 +551,73 @@ public class OrderService {
 
         return response;
     }
-}
 
+    // Helper method to map ArchivedOrder to OrderResponse
+    private OrderResponse mapArchivedToResponse(ArchivedOrder order) {
+        return mapArchivedToResponse(order, order.getItems());
+    }
+
+    private OrderResponse mapArchivedToResponse(ArchivedOrder order, List<ArchivedOrderItem> items) {
+        OrderResponse response = new OrderResponse();
+
+        response.setId(order.getId());
+        response.setOrderNumber(order.getOrderNumber());
+        response.setUserId(order.getUser().getId());
+        response.setUserEmail(order.getUser().getEmail());
+        response.setStatus(order.getStatus().name());
+
+        // Amounts
+        response.setSubtotal(order.getSubtotal());
+        response.setTax(order.getTax());
+        response.setShippingCost(order.getShippingCost());
+        response.setDiscount(order.getDiscount());
+        response.setTotalAmount(order.getTotalAmount());
+
+        // Shipping info
+        response.setShippingName(order.getShippingName());
+        response.setShippingAddress(order.getShippingAddress());
+        response.setShippingCity(order.getShippingCity());
+        response.setShippingState(order.getShippingState());
+        response.setShippingPostalCode(order.getShippingPostalCode());
+        response.setShippingCountry(order.getShippingCountry());
+        response.setShippingPhone(order.getShippingPhone());
+
+        // Payment info
+        response.setPaymentMethod(order.getPaymentMethod());
+        response.setPaymentStatus(order.getPaymentStatus());
+        response.setTransactionId(order.getTransactionId());
+
+        // Timestamps
+        response.setCreatedAt(order.getCreatedAt());
+        response.setConfirmedAt(order.getConfirmedAt());
+        response.setShippedAt(order.getShippedAt());
+        response.setDeliveredAt(order.getDeliveredAt());
+        response.setCancelledAt(order.getCancelledAt());
+        response.setCancellationReason(order.getCancellationReason());
+
+        response.setNotes(order.getNotes());
+
+        // Items
+        List<OrderItemResponse> itemResponses = items.stream()
+                .map(this::mapArchivedItemToResponse)
+                .collect(Collectors.toList());
+        response.setItems(itemResponses);
+
+        return response;
+    }
+
+    private OrderItemResponse mapArchivedItemToResponse(ArchivedOrderItem item) {
+        OrderItemResponse response = new OrderItemResponse();
+
+        response.setId(item.getId());
+        response.setProductId(item.getProduct().getId());
+        response.setProductName(item.getProduct().getName());
+        response.setProductSku(item.getProduct().getSku());
+        response.setProductImageUrl(item.getProduct().getImageUrl());
+        response.setQuantity(item.getQuantity());
+        response.setPriceAtPurchase(item.getPriceAtPurchase());
+        response.setTotalPrice(item.getTotalPrice());
+
+        return response;
+    }
+}
@@ -0,0 +1,280 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.dto.OrderResponse;
+import com.example.ecommerce.event.OrderStatusChangedEvent;
+import com.example.ecommerce.model.User;
+import com.example.ecommerce.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Pushes order status changes to Server-Sent Event streams, replacing client polling of GET /api/orders/{id}.
+// SseEmitter is completed asynchronously, so an open stream holds no request thread while idle.
+// Each subscription queues its messages and has at most one sender task draining them, so a client receives
+// them in the order they were queued; an order stream starts with a snapshot taken after it was registered.
+@Service
+public class OrderStatusStreamService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderStatusStreamService.class);
+
+    public static final String EVENT_NAME = "order-status";
+
+    private final UserRepository userRepository;
+    private final OrderService orderService;
+
+    private final Map<Long, Set<Subscription>> orderSubscriptions = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Subscription>> userSubscriptions = new ConcurrentHashMap<>();
+    private final Map<Long, Integer> connectionsPerUser = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+
+    // Writes go to the client socket; a slow client must not block the committing thread or other clients
+    private final ExecutorService sendExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Value("${sse.max-connections:10000}")
+    private int maxConnections;
+
+    @Value("${sse.max-connections-per-user:5}")
+    private int maxConnectionsPerUser;
+
+    @Value("${sse.emitter-timeout-ms:1800000}")
+    private long emitterTimeoutMs;
+
+    @Value("${sse.max-pending-messages:100}")
+    private int maxPendingMessages;
+
+    public OrderStatusStreamService(UserRepository userRepository, OrderService orderService) {
+        this.userRepository = userRepository;
+        this.orderService = orderService;
+    }
+
+    /**
+     * Open a stream for one order. The current status is loaded after the stream is registered and sent first,
+     * so a change committed meanwhile is either in the snapshot or delivered after it
+     * @param order The order, already checked to belong to the caller
+     * @return The emitter to return from the controller
+     */
+    public SseEmitter subscribeToOrder(OrderResponse order) {
+        Subscription subscription = register(order.getUserId(), orderSubscriptions, order.getId());
+        OrderResponse current;
+        try {
+            current = orderService.getOrderById(order.getId());
+        } catch (RuntimeException e) {
+            subscription.close();
+            throw e;
+        }
+        subscription.start(statusEvent(new OrderStatusChangedEvent(current.getId(), current.getOrderNumber(),
+                current.getUserId(), current.getStatus(), current.getPaymentStatus())));
+        return subscription.emitter;
+    }
+
+    /**
+     * Open a stream receiving status changes for all of a user's orders
+     * @param email The authenticated user's email
+     * @return The emitter to return from the controller
+     */
+    public SseEmitter subscribeToUser(String email) {
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        Subscription subscription = register(user.getId(), userSubscriptions, user.getId());
+        subscription.start(null);
+        return subscription.emitter;
+    }
+
+    // Runs only once the status change is committed, so clients never see a rolled-back status
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        List<Subscription> targets = new ArrayList<>();
+        targets.addAll(orderSubscriptions.getOrDefault(event.getOrderId(), Set.of()));
+        targets.addAll(userSubscriptions.getOrDefault(event.getUserId(), Set.of()));
+
+        for (Subscription subscription : targets) {
+            subscription.enqueue(statusEvent(event));
+        }
+    }
+
+    // Keeps idle connections alive through proxies and detects clients that went away
+    @Scheduled(fixedDelayString = "${sse.heartbeat-interval-ms:15000}")
+    public void sendHeartbeats() {
+        List<Subscription> subscriptions = new ArrayList<>();
+        orderSubscriptions.values().forEach(subscriptions::addAll);
+        userSubscriptions.values().forEach(subscriptions::addAll);
+
+        for (Subscription subscription : subscriptions) {
+            subscription.enqueue(SseEmitter.event().comment("heartbeat"));
+        }
+    }
+
+    public int getOpenConnections() {
+        return connections.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        orderSubscriptions.values().forEach(subscriptions -> subscriptions.forEach(s -> s.emitter.complete()));
+        userSubscriptions.values().forEach(subscriptions -> subscriptions.forEach(s -> s.emitter.complete()));
+        sendExecutor.shutdown();
+    }
+
+    private Subscription register(Long userId, Map<Long, Set<Subscription>> index, Long key) {
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            throw new IllegalStateException("Too many open event streams");
+        }
+
+        AtomicBoolean admitted = new AtomicBoolean();
+        connectionsPerUser.compute(userId, (id, count) -> {
+            int current = count == null ? 0 : count;
+            if (current >= maxConnectionsPerUser) {
+                return count;
+            }
+            admitted.set(true);
+            return current + 1;
+        });
+        if (!admitted.get()) {
+            connections.decrementAndGet();
+            throw new IllegalStateException("Too many open event streams for this user");
+        }
+
+        Subscription subscription = new Subscription(new SseEmitter(emitterTimeoutMs), userId, index, key);
+        index.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(subscription);
+
+        subscription.emitter.onCompletion(subscription::release);
+        subscription.emitter.onTimeout(subscription::release);
+        subscription.emitter.onError(e -> subscription.release());
+        return subscription;
+    }
+
+    private static SseEmitter.SseEventBuilder statusEvent(OrderStatusChangedEvent event) {
+        return SseEmitter.event()
+                .name(EVENT_NAME)
+                .data(event, MediaType.APPLICATION_JSON);
+    }
+
+    private final class Subscription {
+
+        private final SseEmitter emitter;
+        private final Long userId;
+        private final Map<Long, Set<Subscription>> index;
+        private final Long key;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        // Messages waiting for the sender; draining is true while a sender task owns the emitter
+        private final Queue<SseEmitter.SseEventBuilder> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingCount = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        // Nothing is sent before start(), so an order stream's snapshot always goes out first
+        private volatile boolean started;
+
+        private Subscription(SseEmitter emitter, Long userId, Map<Long, Set<Subscription>> index, Long key) {
+            this.emitter = emitter;
+            this.userId = userId;
+            this.index = index;
+            this.key = key;
+        }
+
+        private void start(SseEmitter.SseEventBuilder first) {
+            if (first != null) {
+                send(first);
+            }
+            started = true;
+            scheduleDrain();
+        }
+
+        private void enqueue(SseEmitter.SseEventBuilder message) {
+            if (released.get()) {
+                return;
+            }
+            // A client this far behind is not reading; drop it rather than buffer without bound
+            if (pendingCount.incrementAndGet() > maxPendingMessages) {
+                log.debug("Dropping event stream for user {}: {} messages pending", userId, maxPendingMessages);
+                close();
+                return;
+            }
+            pending.add(message);
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (started && !pending.isEmpty() && draining.compareAndSet(false, true)) {
+                try {
+                    sendExecutor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    // Shutting down
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                SseEmitter.SseEventBuilder message;
+                while ((message = pending.poll()) != null) {
+                    pendingCount.decrementAndGet();
+                    if (!send(message)) {
+                        pending.clear();
+                        return;
+                    }
+                }
+            } finally {
+                draining.set(false);
+            }
+            // A message queued after the last poll but before draining was cleared
+            scheduleDrain();
+        }
+
+        private boolean send(SseEmitter.SseEventBuilder message) {
+            try {
+                emitter.send(message);
+                return true;
+            } catch (IOException | IllegalStateException e) {
+                // Client disconnected or the emitter already completed
+                log.debug("Dropping event stream for user {}: {}", userId, e.getMessage());
+                close();
+                return false;
+            }
+        }
+
+        // Idempotent: completion, timeout, error callbacks and failed writes can all end up here
+        private void release() {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            index.computeIfPresent(key, (k, subscriptions) -> {
+                subscriptions.remove(this);
+                return subscriptions.isEmpty() ? null : subscriptions;
+            });
+            connectionsPerUser.computeIfPresent(userId, (id, count) -> count <= 1 ? null : count - 1);
+            connections.decrementAndGet();
+        }
+
+        // Used when a write fails; the container callbacks then find the subscription already released
+        private void close() {
+            release();
+            try {
+                emitter.complete();
+            } catch (IllegalStateException e) {
+                // Already completed
+            }
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.model.OutboxEvent;
+import com.example.ecommerce.repository.OutboxEventRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+@Service
+public class OutboxDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+    // Upper bound on batches per poll so one busy poll cannot monopolise the scheduler thread
+    private static final int MAX_BATCHES_PER_POLL = 20;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final List<OutboxEventHandler> handlers;
+    private final TransactionTemplate transactionTemplate;
+
+    // Handlers are I/O bound (mail, HTTP, ERP), so each event gets its own virtual thread
+    private final ExecutorService handlerExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Value("${outbox.dispatcher.batch-size:100}")
+    private int batchSize;
+
+    @Value("${outbox.dispatcher.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${outbox.dispatcher.handler-timeout-ms:10000}")
+    private long handlerTimeoutMs;
+
+    // How long a claimed batch stays invisible to other pollers; must outlast the handler timeout
+    @Value("${outbox.dispatcher.lease-ms:60000}")
+    private long leaseMs;
+
+    @Value("${outbox.dispatcher.retry-backoff-ms:1000}")
+    private long retryBackoffMs;
+
+    @Value("${outbox.dispatcher.max-retry-backoff-ms:300000}")
+    private long maxRetryBackoffMs;
+
+    @Value("${outbox.retention-days:7}")
+    private int retentionDays;
+
+    public OutboxDispatcher(OutboxEventRepository outboxEventRepository,
+                            List<OutboxEventHandler> handlers,
+                            PlatformTransactionManager transactionManager) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.handlers = handlers;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // Drain due events batch by batch; each batch is claimed with SKIP LOCKED so several nodes can poll
+    @Scheduled(fixedDelayString = "${outbox.dispatcher.poll-interval-ms:1000}")
+    public void dispatchPendingEvents() {
+        for (int i = 0; i < MAX_BATCHES_PER_POLL; i++) {
+            int processed = dispatchBatch();
+            if (processed < batchSize) {
+                return;
+            }
+        }
+    }
+
+    // Remove dispatched events past the retention window, a bounded batch per statement
+    @Scheduled(cron = "${outbox.cleanup-cron:0 15 * * * *}")
+    public void purgeDispatchedEvents() {
+        LocalDateTime before = LocalDateTime.now().minusDays(retentionDays);
+        int deleted;
+        do {
+            deleted = transactionTemplate.execute(status ->
+                    outboxEventRepository.deleteDispatchedBefore(before, batchSize));
+        } while (deleted == batchSize);
+    }
+
+    // Claim in one short transaction, run the handlers with no transaction (or connection) held, then record the
+    // outcomes in a second short transaction. A node dying mid-batch leaves the events to be retried once the
+    // lease runs out.
+    private int dispatchBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        long lease = Math.max(leaseMs, 2 * handlerTimeoutMs);
+        // Microseconds, as stored by PostgreSQL, so the outcome update can match the lease exactly
+        LocalDateTime leaseUntil = now.plusNanos(TimeUnit.MILLISECONDS.toNanos(lease)).truncatedTo(ChronoUnit.MICROS);
+        List<OutboxEvent> batch = transactionTemplate.execute(status ->
+                outboxEventRepository.claimNextBatch(now, leaseUntil, batchSize));
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+
+        // Fan out: every event in the batch is handled concurrently
+        List<Future<?>> futures = new ArrayList<>(batch.size());
+        for (OutboxEvent event : batch) {
+            futures.add(handlerExecutor.submit(() -> {
+                deliver(event);
+                return null;
+            }));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(handlerTimeoutMs);
+        for (int i = 0; i < batch.size(); i++) {
+            OutboxEvent event = batch.get(i);
+            Future<?> future = futures.get(i);
+            try {
+                future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                event.markDispatched();
+            } catch (ExecutionException e) {
+                recordFailure(event, e.getCause());
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                recordFailure(event, e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.cancel(true);
+                recordFailure(event, e);
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            for (OutboxEvent event : batch) {
+                recordOutcome(event, leaseUntil);
+            }
+        });
+        return batch.size();
+    }
+
+    // Conditional on the lease, unlike a merge of the detached entity: if this batch overran its lease and the
+    // event was claimed again, the stale outcome is dropped instead of overwriting the newer claim
+    private void recordOutcome(OutboxEvent event, LocalDateTime leaseUntil) {
+        int updated = outboxEventRepository.recordOutcome(event.getId(), leaseUntil, event.getStatus(),
+                event.getAttempts(), event.getNextAttemptAt(), event.getLastError(), event.getDispatchedAt());
+        if (updated == 0) {
+            log.warn("Outbox event {} ({}) outlived its lease; outcome {} dropped in favour of the newer claim",
+                    event.getId(), event.getEventType(), event.getStatus());
+        }
+    }
+
+    private void deliver(OutboxEvent event) throws Exception {
+        for (OutboxEventHandler handler : handlers) {
+            if (handler.supports(event.getEventType())) {
+                handler.handle(event);
+            }
+        }
+    }
+
+    private void recordFailure(OutboxEvent event, Throwable error) {
+        String message = error.getClass().getSimpleName() + ": " + error.getMessage();
+
+        if (event.getAttempts() + 1 >= maxAttempts) {
+            event.markDead(message);
+            log.error("Outbox event {} ({}) moved to dead letter after {} attempts: {}",
+                    event.getId(), event.getEventType(), event.getAttempts(), message);
+            return;
+        }
+
+        // Exponential backoff: base, 2x base, 4x base ... capped
+        long backoff = Math.min(maxRetryBackoffMs, retryBackoffMs << Math.min(event.getAttempts(), 20));
+        event.markFailed(message, LocalDateTime.now().plusNanos(TimeUnit.MILLISECONDS.toNanos(backoff)));
+        log.warn("Outbox event {} ({}) failed, retrying in {} ms: {}",
+                event.getId(), event.getEventType(), backoff, message);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        handlerExecutor.shutdownNow();
+    }
+}
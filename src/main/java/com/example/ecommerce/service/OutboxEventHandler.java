@@ -0,0 +1,23 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.model.OutboxEvent;
+
+/**
+ * Receives events recorded in the transactional outbox after the business transaction has committed.
+ * Every Spring bean implementing this interface is picked up by {@link OutboxDispatcher}.
+ * Delivery is at-least-once, so implementations must be idempotent.
+ */
+public interface OutboxEventHandler {
+
+    /**
+     * @param eventType The outbox event type, e.g. {@link OutboxEvent#ORDER_CREATED}
+     * @return true if this handler wants to receive events of the given type
+     */
+    boolean supports(String eventType);
+
+    /**
+     * Handle a single event. Throwing schedules the event for a retry.
+     * @param event The event, including its JSON payload
+     */
+    void handle(OutboxEvent event) throws Exception;
+}
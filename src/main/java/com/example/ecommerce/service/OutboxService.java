@@ -0,0 +1,61 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.model.OutboxEvent;
+import com.example.ecommerce.repository.OutboxEventRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.ObjectMapper;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+
+@Service
+public class OutboxService {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    public OutboxService(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Record an event in the caller's transaction, so it is committed or rolled back with the business change
+     * @param aggregateType The kind of entity the event is about, e.g. "Order"
+     * @param aggregateId The entity ID
+     * @param eventType The event type
+     * @param payload Event data, serialized to JSON
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(String aggregateType, Long aggregateId, String eventType, Map<String, Object> payload) {
+        String json = objectMapper.writeValueAsString(payload);
+        outboxEventRepository.save(new OutboxEvent(aggregateType, aggregateId, eventType, json));
+    }
+
+    /**
+     * Record an ORDER_STATUS_CHANGED event for each order with one set-based insert
+     * @param orderIds The orders whose status changed
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordOrderStatusChanges(Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        outboxEventRepository.insertOrderStatusChangedEvents(orderIds, LocalDateTime.now());
+    }
+
+    /**
+     * Record a PAYMENT_CONFIRMED event for each order with one set-based insert
+     * @param orderIds The orders whose payment was confirmed
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordPaymentConfirmations(Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        outboxEventRepository.insertPaymentConfirmedEvents(orderIds, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.ecommerce.service;
+
+import java.util.Map;
+
+/**
+ * Payment provider operations used by PaymentService.
+ * StripePaymentGateway talks to Stripe; SimulatedPaymentGateway (profile "payment-sim") runs in-process
+ * for offline load tests. Implementations throw PaymentGatewayException on provider errors.
+ * Both carry the PROVIDER qualifier; the primary bean is GuardedPaymentGateway, which wraps the active provider
+ * with timeouts, a circuit breaker and a bulkhead.
+ */
+public interface PaymentGateway {
+
+    // Qualifier of the provider implementation wrapped by GuardedPaymentGateway
+    String PROVIDER = "paymentGatewayProvider";
+
+    /**
+     * Create a payment intent
+     * @param amountInCents Amount in the smallest currency unit
+     * @param currency ISO currency code
+     * @param metadata Key/value pairs stored with the intent
+     * @param description Shown in the provider's dashboard
+     * @return The created intent, including its client secret
+     */
+    PaymentGatewayIntent createIntent(long amountInCents, String currency, Map<String, String> metadata,
+                                      String description);
+
+    /**
+     * Fetch the current state of a payment intent
+     * @param paymentIntentId The intent ID
+     * @return The intent
+     */
+    PaymentGatewayIntent retrieveIntent(String paymentIntentId);
+
+    /**
+     * Cancel a payment intent
+     * @param paymentIntentId The intent ID
+     * @return The cancelled intent
+     */
+    PaymentGatewayIntent cancelIntent(String paymentIntentId);
+
+    /**
+     * @return Name stored as the order's payment method, e.g. "stripe"
+     */
+    String getName();
+}
@@ -0,0 +1,25 @@
+package com.example.ecommerce.service;
+
+// Raised when the payment provider cannot be reached or rejects a request
+public class PaymentGatewayException extends RuntimeException {
+
+    // True for provider-side trouble (network, 5xx, rate limiting); counted by the circuit breaker
+    private final boolean transientFailure;
+
+    public PaymentGatewayException(String message) {
+        this(message, null, false);
+    }
+
+    public PaymentGatewayException(String message, Throwable cause) {
+        this(message, cause, false);
+    }
+
+    public PaymentGatewayException(String message, Throwable cause, boolean transientFailure) {
+        super(message, cause);
+        this.transientFailure = transientFailure;
+    }
+
+    public boolean isTransientFailure() {
+        return transientFailure;
+    }
+}
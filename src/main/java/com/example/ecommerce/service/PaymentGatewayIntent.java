@@ -0,0 +1,50 @@
+package com.example.ecommerce.service;
+
+// Provider-neutral view of a payment intent; statuses use Stripe's vocabulary
+public class PaymentGatewayIntent {
+
+    public static final String REQUIRES_PAYMENT_METHOD = "requires_payment_method";
+    public static final String PROCESSING = "processing";
+    public static final String SUCCEEDED = "succeeded";
+    public static final String CANCELED = "canceled";
+
+    private final String id;
+    private final String clientSecret;
+    private final String status;
+    private final Long amount;
+    private final String currency;
+
+    public PaymentGatewayIntent(String id, String clientSecret, String status, Long amount, String currency) {
+        this.id = id;
+        this.clientSecret = clientSecret;
+        this.status = status;
+        this.amount = amount;
+        this.currency = currency;
+    }
+
+    // Business logic methods
+    public boolean isSucceeded() {
+        return SUCCEEDED.equals(status);
+    }
+
+    // Getters
+    public String getId() {
+        return id;
+    }
+
+    public String getClientSecret() {
+        return clientSecret;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public Long getAmount() {
+        return amount;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+}
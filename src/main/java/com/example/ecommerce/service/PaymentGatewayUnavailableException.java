@@ -0,0 +1,16 @@
+package com.example.ecommerce.service;
+
+// The gateway call was not attempted or did not finish in time; clients should retry after the given delay
+public class PaymentGatewayUnavailableException extends PaymentGatewayException {
+
+    private final long retryAfterSeconds;
+
+    public PaymentGatewayUnavailableException(String message, long retryAfterSeconds) {
+        super(message, null, true);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.ecommerce.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local cache of payment intent statuses, so status polling does not call the payment gateway every time.
+ * Fed by intent creation, gateway reads and webhook events. Terminal statuses never go stale; other
+ * statuses are served only while younger than max-age, after which callers go back to the gateway.
+ */
+@Component
+public class PaymentIntentStatusCache {
+
+    private static final Set<String> TERMINAL_STATUSES = Set.of(
+            PaymentGatewayIntent.SUCCEEDED,
+            PaymentGatewayIntent.CANCELED
+    );
+
+    private final Cache<String, CachedStatus> cache;
+    private final long maxAgeNanos;
+
+    public PaymentIntentStatusCache(MeterRegistry meterRegistry,
+                                    @Value("${payment.status-cache.max-size:100000}") long maxSize,
+                                    @Value("${payment.status-cache.ttl-ms:3600000}") long ttlMs,
+                                    @Value("${payment.status-cache.max-age-ms:5000}") long maxAgeMs) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build();
+        this.maxAgeNanos = TimeUnit.MILLISECONDS.toNanos(maxAgeMs);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "paymentIntentStatus");
+    }
+
+    /**
+     * Record a status; a terminal status is final and never replaced (late, redelivered or reordered events)
+     * @param paymentIntentId The intent ID
+     * @param status The status as reported by the gateway or a webhook
+     */
+    public void put(String paymentIntentId, String status) {
+        if (paymentIntentId == null || status == null) {
+            return;
+        }
+        CachedStatus update = new CachedStatus(status, System.nanoTime());
+        cache.asMap().merge(paymentIntentId, update,
+                (current, next) -> current.isTerminal() ? current : next);
+    }
+
+    /**
+     * @param paymentIntentId The intent ID
+     * @return The cached status if present and still fresh enough to serve
+     */
+    public Optional<String> getFresh(String paymentIntentId) {
+        CachedStatus cached = cache.getIfPresent(paymentIntentId);
+        if (cached == null) {
+            return Optional.empty();
+        }
+        if (!cached.isTerminal() && System.nanoTime() - cached.recordedAt > maxAgeNanos) {
+            return Optional.empty();
+        }
+        return Optional.of(cached.status);
+    }
+
+    private static final class CachedStatus {
+
+        private final String status;
+        private final long recordedAt;
+
+        private CachedStatus(String status, long recordedAt) {
+            this.status = status;
+            this.recordedAt = recordedAt;
+        }
+
+        private boolean isTerminal() {
+            return TERMINAL_STATUSES.contains(status);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.event.OrderStatusChangedEvent;
+import com.example.ecommerce.repository.OrderRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// Applies payment outcomes learned from the gateway (webhooks, reconciliation) to orders in bulk
+@Service
+public class PaymentOutcomeService {
+
+    private final OrderRepository orderRepository;
+    private final OutboxService outboxService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public PaymentOutcomeService(OrderRepository orderRepository,
+                                 OutboxService outboxService,
+                                 ApplicationEventPublisher eventPublisher) {
+        this.orderRepository = orderRepository;
+        this.outboxService = outboxService;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Apply outcomes keyed by payment intent id with one guarded UPDATE per outcome
+     * Failures and cancellations are applied first, so a success for the same intent wins;
+     * a PAID order is never downgraded and only PENDING orders are confirmed
+     * @param succeeded Intents that succeeded
+     * @param failed Intents whose payment failed
+     * @param canceled Intents that were cancelled
+     * @return The orders that actually changed, per outcome
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public AppliedOutcomes apply(Collection<String> succeeded, Collection<String> failed,
+                                 Collection<String> canceled) {
+        LocalDateTime now = LocalDateTime.now();
+
+        List<Long> failedOrderIds = failed.isEmpty()
+                ? List.of()
+                : orderRepository.setPaymentStatusByPaymentIntents(failed, "FAILED", now);
+        List<Long> cancelledOrderIds = canceled.isEmpty()
+                ? List.of()
+                : orderRepository.setPaymentStatusByPaymentIntents(canceled, "CANCELLED", now);
+        List<Long> paidOrderIds = succeeded.isEmpty()
+                ? List.of()
+                : orderRepository.markPaidByPaymentIntents(succeeded, now);
+        outboxService.recordPaymentConfirmations(paidOrderIds);
+
+        AppliedOutcomes outcomes = new AppliedOutcomes(paidOrderIds, failedOrderIds, cancelledOrderIds);
+        orderRepository.findAllById(outcomes.getChangedOrderIds())
+                .forEach(order -> eventPublisher.publishEvent(OrderStatusChangedEvent.from(order)));
+        return outcomes;
+    }
+
+    public static class AppliedOutcomes {
+
+        private final List<Long> paidOrderIds;
+        private final List<Long> failedOrderIds;
+        private final List<Long> cancelledOrderIds;
+
+        public AppliedOutcomes(List<Long> paidOrderIds, List<Long> failedOrderIds, List<Long> cancelledOrderIds) {
+            this.paidOrderIds = paidOrderIds;
+            this.failedOrderIds = failedOrderIds;
+            this.cancelledOrderIds = cancelledOrderIds;
+        }
+
+        public List<Long> getChangedOrderIds() {
+            List<Long> changed = new ArrayList<>(paidOrderIds);
+            changed.addAll(failedOrderIds);
+            changed.addAll(cancelledOrderIds);
+            return changed;
+        }
+
+        public List<Long> getPaidOrderIds() {
+            return paidOrderIds;
+        }
+
+        public List<Long> getFailedOrderIds() {
+            return failedOrderIds;
+        }
+
+        public List<Long> getCancelledOrderIds() {
+            return cancelledOrderIds;
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.repository.OrderRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Settles orders left with paymentStatus PENDING (the client never confirmed and no webhook arrived).
+ * Pages through old pending orders by id, asks the gateway for each intent's status at a bounded rate and
+ * concurrency, then applies the outcomes per page with bulk updates. The updates are guarded, so running on
+ * several nodes or racing a webhook is harmless.
+ */
+@Service
+public class PaymentReconciliationService {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentReconciliationService.class);
+
+    private final OrderRepository orderRepository;
+    private final PaymentGateway paymentGateway;
+    private final PaymentIntentStatusCache paymentIntentStatusCache;
+    private final PaymentOutcomeService paymentOutcomeService;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ExecutorService lookupExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Counter checked;
+    private final Counter errors;
+    private final Counter paid;
+    private final Counter failed;
+    private final Counter cancelled;
+    private final Timer runTimer;
+
+    // Age of the oldest pending order seen by the last run, in seconds
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    // Earliest time the next gateway lookup may start; spaces lookups to the configured rate
+    private final AtomicLong nextLookupAt = new AtomicLong();
+
+    @Value("${payment.reconciliation.enabled:true}")
+    private boolean enabled;
+
+    @Value("${payment.reconciliation.min-age-minutes:15}")
+    private long minAgeMinutes;
+
+    @Value("${payment.reconciliation.fail-after-minutes:1440}")
+    private long failAfterMinutes;
+
+    @Value("${payment.reconciliation.batch-size:100}")
+    private int batchSize;
+
+    @Value("${payment.reconciliation.max-orders-per-run:5000}")
+    private int maxOrdersPerRun;
+
+    @Value("${payment.reconciliation.max-concurrency:4}")
+    private int maxConcurrency;
+
+    @Value("${payment.reconciliation.rate-per-second:20}")
+    private double ratePerSecond;
+
+    public PaymentReconciliationService(OrderRepository orderRepository,
+                                        PaymentGateway paymentGateway,
+                                        PaymentIntentStatusCache paymentIntentStatusCache,
+                                        PaymentOutcomeService paymentOutcomeService,
+                                        PlatformTransactionManager transactionManager,
+                                        MeterRegistry meterRegistry) {
+        this.orderRepository = orderRepository;
+        this.paymentGateway = paymentGateway;
+        this.paymentIntentStatusCache = paymentIntentStatusCache;
+        this.paymentOutcomeService = paymentOutcomeService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        this.checked = Counter.builder("payment.reconciliation.checked")
+                .description("Pending orders whose payment intent was checked")
+                .register(meterRegistry);
+        this.errors = Counter.builder("payment.reconciliation.errors")
+                .register(meterRegistry);
+        this.paid = discrepancyCounter(meterRegistry, "paid");
+        this.failed = discrepancyCounter(meterRegistry, "failed");
+        this.cancelled = discrepancyCounter(meterRegistry, "cancelled");
+        this.runTimer = Timer.builder("payment.reconciliation.run")
+                .register(meterRegistry);
+        Gauge.builder("payment.reconciliation.lag", lagSeconds, AtomicLong::get)
+                .description("Age in seconds of the oldest order still awaiting payment at the last run")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${payment.reconciliation.interval-ms:300000}")
+    public void reconcilePendingPayments() {
+        if (!enabled) {
+            return;
+        }
+        runTimer.record(this::runOnce);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        lookupExecutor.shutdownNow();
+    }
+
+    private void runOnce() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime createdBefore = now.minusMinutes(minAgeMinutes);
+        LocalDateTime failBefore = now.minusMinutes(failAfterMinutes);
+
+        long afterId = 0;
+        int scanned = 0;
+        LocalDateTime oldest = null;
+
+        while (scanned < maxOrdersPerRun) {
+            List<OrderRepository.PendingPayment> page = orderRepository.findPendingPaymentsAfter(
+                    createdBefore, afterId, Limit.of(Math.min(batchSize, maxOrdersPerRun - scanned)));
+            if (page.isEmpty()) {
+                break;
+            }
+
+            for (OrderRepository.PendingPayment pending : page) {
+                if (oldest == null || pending.getCreatedAt().isBefore(oldest)) {
+                    oldest = pending.getCreatedAt();
+                }
+            }
+
+            if (!reconcilePage(page, failBefore)) {
+                log.warn("Payment reconciliation stopped early: payment gateway unavailable");
+                break;
+            }
+
+            scanned += page.size();
+            afterId = page.get(page.size() - 1).getId();
+        }
+
+        lagSeconds.set(oldest == null ? 0 : Duration.between(oldest, now).getSeconds());
+        if (scanned > 0) {
+            log.info("Payment reconciliation checked {} pending orders", scanned);
+        }
+    }
+
+    // Look up every intent on the page, then apply the outcomes in one short transaction
+    private boolean reconcilePage(List<OrderRepository.PendingPayment> page, LocalDateTime failBefore) {
+        Map<String, String> statuses = new ConcurrentHashMap<>();
+        Semaphore concurrency = new Semaphore(maxConcurrency);
+        List<Future<?>> lookups = new ArrayList<>(page.size());
+        boolean gatewayAvailable = true;
+
+        try {
+            for (OrderRepository.PendingPayment pending : page) {
+                concurrency.acquire();
+                awaitRateSlot();
+                lookups.add(lookupExecutor.submit(() -> {
+                    try {
+                        statuses.put(pending.getTransactionId(), lookupStatus(pending.getTransactionId()));
+                    } finally {
+                        concurrency.release();
+                    }
+                    return null;
+                }));
+            }
+
+            for (Future<?> lookup : lookups) {
+                try {
+                    lookup.get();
+                } catch (ExecutionException e) {
+                    errors.increment();
+                    if (e.getCause() instanceof PaymentGatewayUnavailableException) {
+                        gatewayAvailable = false;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            lookups.forEach(lookup -> lookup.cancel(true));
+            return false;
+        }
+
+        checked.increment(statuses.size());
+
+        List<String> succeeded = new ArrayList<>();
+        List<String> failedIntents = new ArrayList<>();
+        List<String> canceled = new ArrayList<>();
+        for (OrderRepository.PendingPayment pending : page) {
+            String status = statuses.get(pending.getTransactionId());
+            if (PaymentGatewayIntent.SUCCEEDED.equals(status)) {
+                succeeded.add(pending.getTransactionId());
+            } else if (PaymentGatewayIntent.CANCELED.equals(status)) {
+                canceled.add(pending.getTransactionId());
+            } else if (PaymentGatewayIntent.REQUIRES_PAYMENT_METHOD.equals(status)
+                    && pending.getCreatedAt().isBefore(failBefore)) {
+                // Never paid within the allowed window: treat as abandoned
+                failedIntents.add(pending.getTransactionId());
+            }
+        }
+
+        if (!succeeded.isEmpty() || !failedIntents.isEmpty() || !canceled.isEmpty()) {
+            PaymentOutcomeService.AppliedOutcomes outcomes = transactionTemplate.execute(status ->
+                    paymentOutcomeService.apply(succeeded, failedIntents, canceled));
+            if (outcomes != null) {
+                paid.increment(outcomes.getPaidOrderIds().size());
+                failed.increment(outcomes.getFailedOrderIds().size());
+                cancelled.increment(outcomes.getCancelledOrderIds().size());
+            }
+        }
+        return gatewayAvailable;
+    }
+
+    private String lookupStatus(String paymentIntentId) {
+        return paymentIntentStatusCache.getFresh(paymentIntentId).orElseGet(() -> {
+            String status = paymentGateway.retrieveIntent(paymentIntentId).getStatus();
+            paymentIntentStatusCache.put(paymentIntentId, status);
+            return status;
+        });
+    }
+
+    // Reserve the next lookup slot and sleep until it arrives
+    private void awaitRateSlot() throws InterruptedException {
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+        long now = System.nanoTime();
+        long slot = nextLookupAt.getAndUpdate(next -> Math.max(next, now) + intervalNanos);
+        long waitNanos = Math.max(slot, now) - now;
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    private static Counter discrepancyCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("payment.reconciliation.discrepancies")
+                .description("Pending orders corrected by reconciliation")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
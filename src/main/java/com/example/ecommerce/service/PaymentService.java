@@ -1,88 +1,138 @@
 package com.example.ecommerce.service;
 
 import com.example.ecommerce.dto.PaymentIntentResponse;
+import com.example.ecommerce.event.OrderStatusChangedEvent;
 import com.example.ecommerce.model.Order;
+import com.example.ecommerce.model.OutboxEvent;
+import com.example.ecommerce.model.PaymentIntentRecord;
 import com.example.ecommerce.repository.OrderRepository;
-import com.stripe.exception.StripeException;
-import com.stripe.model.PaymentIntent;
-import com.stripe.param.PaymentIntentCreateParams;
+import com.example.ecommerce.repository.PaymentIntentRecordRepository;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 
 @Service
 public class PaymentService {
 
     private final OrderRepository orderRepository;
+    private final PaymentGateway paymentGateway;
+    private final PaymentIntentStatusCache paymentIntentStatusCache;
+    private final PaymentIntentRecordRepository paymentIntentRecordRepository;
+    private final OutboxService outboxService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate readTransactionTemplate;
+    private final TransactionTemplate writeTransactionTemplate;
 
     @Value("${stripe.currency:usd}")
     private String currency;
 
-    public PaymentService(OrderRepository orderRepository) {
+    public PaymentService(OrderRepository orderRepository,
+                          PaymentGateway paymentGateway,
+                          PaymentIntentStatusCache paymentIntentStatusCache,
+                          PaymentIntentRecordRepository paymentIntentRecordRepository,
+                          OutboxService outboxService,
+                          ApplicationEventPublisher eventPublisher,
+                          PlatformTransactionManager transactionManager) {
         this.orderRepository = orderRepository;
+        this.paymentGateway = paymentGateway;
+        this.paymentIntentStatusCache = paymentIntentStatusCache;
+        this.paymentIntentRecordRepository = paymentIntentRecordRepository;
+        this.outboxService = outboxService;
+        this.eventPublisher = eventPublisher;
+        this.readTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readTransactionTemplate.setReadOnly(true);
+        this.writeTransactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     /**
-     * Create a Stripe Payment Intent for an order
+     * Create a Payment Intent for an order, or reuse the order's open one
+     * An open intent for the same amount is returned from its local record with no gateway call; one whose
+     * amount no longer matches the order total is cancelled and replaced.
+     * The gateway calls run between short transactions so no database connection is held during them
      * @param orderId The order ID
      * @param userEmail The user's email
      * @return PaymentIntentResponse with client secret
-     * @throws StripeException if Stripe API call fails
+     * @throws PaymentGatewayException if the payment gateway call fails
      */
-    @Transactional
-    public PaymentIntentResponse createPaymentIntent(Long orderId, String userEmail) throws StripeException {
-        // Fetch the order
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new RuntimeException("Order not found with id: " + orderId));
-
-        // Verify the order belongs to the user
-        if (!order.getUser().getEmail().equals(userEmail)) {
-            throw new RuntimeException("Order does not belong to the user");
-        }
+    public PaymentIntentResponse createPaymentIntent(Long orderId, String userEmail) {
+        // Phase 1: validate the order in a read-only transaction
+        Order order = readTransactionTemplate.execute(status -> {
+            Order found = orderRepository.findById(orderId)
+                    .orElseThrow(() -> new RuntimeException("Order not found with id: " + orderId));
 
-        // Check if order is already paid
-        if ("PAID".equals(order.getPaymentStatus())) {
-            throw new RuntimeException("Order is already paid");
-        }
+            // Verify the order belongs to the user
+            if (!found.getUser().getEmail().equals(userEmail)) {
+                throw new RuntimeException("Order does not belong to the user");
+            }
+
+            // Check if order is already paid
+            if ("PAID".equals(found.getPaymentStatus())) {
+                throw new RuntimeException("Order is already paid");
+            }
+            return found;
+        });
 
-        // Convert amount to cents (Stripe works with smallest currency unit)
+        // Convert amount to cents (gateways work with the smallest currency unit)
         long amountInCents = order.getTotalAmount()
                 .multiply(BigDecimal.valueOf(100))
                 .longValue();
 
+        // Reuse the order's current intent while it is still open; double-clicks and reloads end here
+        String previousIntentId = order.getTransactionId();
+        Optional<PaymentIntentRecord> existing = previousIntentId == null
+                ? Optional.empty()
+                : paymentIntentRecordRepository.findById(previousIntentId)
+                        .filter(record -> record.getOrderId().equals(orderId));
+        if (existing.isPresent() && !"CANCELLED".equals(order.getPaymentStatus())) {
+            PaymentIntentRecord record = existing.get();
+            String intentStatus = paymentIntentStatusCache.getFresh(record.getId()).orElse(record.getStatus());
+            if (!PaymentGatewayIntent.CANCELED.equals(intentStatus)) {
+                // An intent that is being or has been paid can no longer be replaced
+                if (matchesAmount(record, amountInCents)
+                        || PaymentGatewayIntent.SUCCEEDED.equals(intentStatus)
+                        || PaymentGatewayIntent.PROCESSING.equals(intentStatus)) {
+                    return toResponse(record, intentStatus);
+                }
+
+                // The order total changed since the intent was created; make sure the old amount can't be paid
+                cancelPaymentIntent(record.getId());
+            }
+        }
+
         // Create metadata for tracking
         Map<String, String> metadata = new HashMap<>();
         metadata.put("order_id", orderId.toString());
         metadata.put("order_number", order.getOrderNumber());
         metadata.put("user_email", userEmail);
 
-        // Create Payment Intent parameters
-        PaymentIntentCreateParams params = PaymentIntentCreateParams.builder()
-                .setAmount(amountInCents)
-                .setCurrency(currency)
-                .putMetadata("order_id", orderId.toString())
-                .putMetadata("order_number", order.getOrderNumber())
-                .putMetadata("user_email", userEmail)
-                .setDescription("Payment for order " + order.getOrderNumber())
-                .setAutomaticPaymentMethods(
-                        PaymentIntentCreateParams.AutomaticPaymentMethods.builder()
-                                .setEnabled(true)
-                                .build()
-                )
-                .build();
-
-        // Create the Payment Intent
-        PaymentIntent paymentIntent = PaymentIntent.create(params);
-
-        // Update order with payment intent ID
-        order.setTransactionId(paymentIntent.getId());
-        order.setPaymentMethod("stripe");
-        order.setPaymentStatus("PENDING");
-        orderRepository.save(order);
+        // Phase 2: create the Payment Intent with no transaction open
+        PaymentGatewayIntent paymentIntent = paymentGateway.createIntent(amountInCents, currency, metadata,
+                "Payment for order " + order.getOrderNumber());
+        paymentIntentStatusCache.put(paymentIntent.getId(), paymentIntent.getStatus());
+
+        // Phase 3: attach and record the intent, unless the order was paid or got another intent meanwhile
+        Integer attached = writeTransactionTemplate.execute(status -> {
+            int updated = orderRepository.attachPaymentIntent(orderId, paymentIntent.getId(),
+                    previousIntentId == null ? "" : previousIntentId, paymentGateway.getName(), LocalDateTime.now());
+            if (updated > 0) {
+                paymentIntentRecordRepository.save(new PaymentIntentRecord(paymentIntent.getId(), orderId,
+                        paymentIntent.getClientSecret(), paymentIntent.getAmount(), paymentIntent.getCurrency(),
+                        paymentIntent.getStatus()));
+            }
+            return updated;
+        });
+        if (attached == null || attached == 0) {
+            cancelPaymentIntent(paymentIntent.getId());
+            return concurrentlyAttachedIntent(orderId);
+        }
 
         // Return response
         return new PaymentIntentResponse(
@@ -94,56 +144,142 @@ public class PaymentService {
         );
     }
 
+    // After losing the attach race: hand out the intent a concurrent request attached, unless the order got paid
+    private PaymentIntentResponse concurrentlyAttachedIntent(Long orderId) {
+        Order current = readTransactionTemplate.execute(status -> orderRepository.findById(orderId)
+                .orElseThrow(() -> new RuntimeException("Order not found with id: " + orderId)));
+        if ("PAID".equals(current.getPaymentStatus()) || current.getTransactionId() == null) {
+            throw new RuntimeException("Order is already paid");
+        }
+        return paymentIntentRecordRepository.findById(current.getTransactionId())
+                .filter(record -> record.getOrderId().equals(orderId))
+                .map(record -> toResponse(record, paymentIntentStatusCache.getFresh(record.getId())
+                        .orElse(record.getStatus())))
+                .orElseThrow(() -> new RuntimeException("Order payment changed concurrently, please retry"));
+    }
+
+    private boolean matchesAmount(PaymentIntentRecord record, long amountInCents) {
+        return record.getAmount() == amountInCents && currency.equalsIgnoreCase(record.getCurrency());
+    }
+
+    private PaymentIntentResponse toResponse(PaymentIntentRecord record, String status) {
+        return new PaymentIntentResponse(
+                record.getClientSecret(),
+                record.getId(),
+                status,
+                record.getAmount(),
+                record.getCurrency()
+        );
+    }
+
     /**
      * Confirm a payment and update order status
+     * The intent must be the one attached to the order and must cover the order total in the configured currency,
+     * so an intent paid for another (cheaper) order can't confirm this one.
+     * The gateway call runs between two short transactions so no database connection is held during it
      * @param orderId The order ID
-     * @param paymentIntentId The Stripe Payment Intent ID
+     * @param paymentIntentId The Payment Intent ID
      * @param userEmail The user's email
      * @return Updated order
      */
-    @Transactional
-    public Order confirmPayment(Long orderId, String paymentIntentId, String userEmail) throws StripeException {
-        // Fetch the order
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new RuntimeException("Order not found with id: " + orderId));
-
-        // Verify the order belongs to the user
-        if (!order.getUser().getEmail().equals(userEmail)) {
-            throw new RuntimeException("Order does not belong to the user");
-        }
+    public Order confirmPayment(Long orderId, String paymentIntentId, String userEmail) {
+        // Phase 1: validate the order in a read-only transaction
+        Order order = readTransactionTemplate.execute(status -> {
+            Order found = orderRepository.findById(orderId)
+                    .orElseThrow(() -> new RuntimeException("Order not found with id: " + orderId));
 
-        // Retrieve Payment Intent from Stripe
-        PaymentIntent paymentIntent = PaymentIntent.retrieve(paymentIntentId);
+            // Verify the order belongs to the user
+            if (!found.getUser().getEmail().equals(userEmail)) {
+                throw new RuntimeException("Order does not belong to the user");
+            }
+            return found;
+        });
+
+        // Only the intent currently attached to the order can confirm it
+        if (!paymentIntentId.equals(order.getTransactionId())) {
+            throw new RuntimeException("Payment intent does not belong to the order");
+        }
 
-        // Check if payment is successful
-        if ("succeeded".equals(paymentIntent.getStatus())) {
-            order.setPaymentStatus("PAID");
-            order.confirmOrder();
-            orderRepository.save(order);
+        // A retried confirmation of the same intent needs no gateway call
+        if ("PAID".equals(order.getPaymentStatus())) {
             return order;
-        } else {
-            throw new RuntimeException("Payment not successful. Status: " + paymentIntent.getStatus());
         }
+
+        long amountInCents = order.getTotalAmount()
+                .multiply(BigDecimal.valueOf(100))
+                .longValue();
+
+        // Phase 2: a succeeded status (e.g. from the webhook) is final when our own record of the intent shows it
+        // was created for this order and amount; otherwise ask the gateway, no transaction open
+        boolean verifiedLocally = paymentIntentStatusCache.getFresh(paymentIntentId)
+                .filter(PaymentGatewayIntent.SUCCEEDED::equals)
+                .flatMap(status -> paymentIntentRecordRepository.findById(paymentIntentId))
+                .filter(record -> record.getOrderId().equals(orderId) && matchesAmount(record, amountInCents))
+                .isPresent();
+        if (!verifiedLocally) {
+            PaymentGatewayIntent paymentIntent = paymentGateway.retrieveIntent(paymentIntentId);
+            paymentIntentStatusCache.put(paymentIntentId, paymentIntent.getStatus());
+
+            // Check if payment is successful
+            if (!paymentIntent.isSucceeded()) {
+                throw new RuntimeException("Payment not successful. Status: " + paymentIntent.getStatus());
+            }
+
+            // The paid amount must cover this order's total
+            if (paymentIntent.getAmount() == null || paymentIntent.getAmount() != amountInCents
+                    || !currency.equalsIgnoreCase(paymentIntent.getCurrency())) {
+                throw new RuntimeException("Payment amount does not match the order total");
+            }
+        }
+
+        // Phase 3: guarded write; only a pending, unpaid order is confirmed
+        return writeTransactionTemplate.execute(status -> {
+            int confirmed = orderRepository.markPaidAndConfirmed(orderId, paymentIntentId, LocalDateTime.now());
+            Order updated = orderRepository.findById(orderId)
+                    .orElseThrow(() -> new RuntimeException("Order not found with id: " + orderId));
+
+            if (confirmed == 0) {
+                // A concurrent confirmation already won; anything else means the order moved on meanwhile
+                if ("PAID".equals(updated.getPaymentStatus())) {
+                    return updated;
+                }
+                throw new RuntimeException("Order can no longer be confirmed. Status: " + updated.getStatus());
+            }
+
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("orderId", updated.getId());
+            payload.put("orderNumber", updated.getOrderNumber());
+            payload.put("paymentIntentId", paymentIntentId);
+            payload.put("totalAmount", updated.getTotalAmount());
+            outboxService.record("Order", updated.getId(), OutboxEvent.PAYMENT_CONFIRMED, payload);
+            eventPublisher.publishEvent(OrderStatusChangedEvent.from(updated));
+            return updated;
+        });
     }
 
     /**
-     * Get payment status from Stripe
-     * @param paymentIntentId The Stripe Payment Intent ID
+     * Get payment status, from the local status cache when fresh, otherwise from the payment gateway
+     * @param paymentIntentId The Payment Intent ID
      * @return Payment Intent status
      */
-    public String getPaymentStatus(String paymentIntentId) throws StripeException {
-        PaymentIntent paymentIntent = PaymentIntent.retrieve(paymentIntentId);
-        return paymentIntent.getStatus();
+    public String getPaymentStatus(String paymentIntentId) {
+        return paymentIntentStatusCache.getFresh(paymentIntentId).orElseGet(() -> {
+            String status = paymentGateway.retrieveIntent(paymentIntentId).getStatus();
+            paymentIntentStatusCache.put(paymentIntentId, status);
+            return status;
+        });
     }
 
     /**
      * Cancel a payment intent
-     * @param paymentIntentId The Stripe Payment Intent ID
+     * @param paymentIntentId The Payment Intent ID
      * @return Cancelled Payment Intent
      */
-    public PaymentIntent cancelPaymentIntent(String paymentIntentId) throws StripeException {
-        PaymentIntent paymentIntent = PaymentIntent.retrieve(paymentIntentId);
-        return paymentIntent.cancel();
+    public PaymentGatewayIntent cancelPaymentIntent(String paymentIntentId) {
+        PaymentGatewayIntent cancelled = paymentGateway.cancelIntent(paymentIntentId);
+        paymentIntentStatusCache.put(paymentIntentId, cancelled.getStatus());
+        paymentIntentRecordRepository.updateStatus(paymentIntentId, cancelled.getStatus(), LocalDateTime.now());
+        return cancelled;
     }
 }
 
@@ -0,0 +1,163 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.model.PaymentWebhookEvent;
+import com.example.ecommerce.repository.PaymentWebhookEventRepository;
+import com.google.gson.JsonParser;
+import com.stripe.exception.StripeException;
+import com.stripe.model.Event;
+import com.stripe.model.EventDataObjectDeserializer;
+import com.stripe.model.PaymentIntent;
+import com.stripe.model.StripeObject;
+import com.stripe.net.Webhook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Service
+public class PaymentWebhookService {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentWebhookService.class);
+
+    // Upper bound on batches per poll so one busy poll cannot monopolise the scheduler thread
+    private static final int MAX_BATCHES_PER_POLL = 20;
+
+    private static final Set<String> HANDLED_EVENT_TYPES = Set.of(
+            PaymentWebhookEvent.PAYMENT_SUCCEEDED,
+            PaymentWebhookEvent.PAYMENT_FAILED,
+            PaymentWebhookEvent.PAYMENT_CANCELED
+    );
+
+    private final PaymentWebhookEventRepository paymentWebhookEventRepository;
+    private final PaymentOutcomeService paymentOutcomeService;
+    private final PaymentIntentStatusCache paymentIntentStatusCache;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${stripe.webhook-secret:}")
+    private String webhookSecret;
+
+    @Value("${stripe.webhook.batch-size:200}")
+    private int batchSize;
+
+    @Value("${stripe.webhook.retention-days:30}")
+    private int retentionDays;
+
+    public PaymentWebhookService(PaymentWebhookEventRepository paymentWebhookEventRepository,
+                                 PaymentOutcomeService paymentOutcomeService,
+                                 PaymentIntentStatusCache paymentIntentStatusCache,
+                                 PlatformTransactionManager transactionManager) {
+        this.paymentWebhookEventRepository = paymentWebhookEventRepository;
+        this.paymentOutcomeService = paymentOutcomeService;
+        this.paymentIntentStatusCache = paymentIntentStatusCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Verify a Stripe webhook delivery and enqueue it; the event is applied to orders later by the worker
+     * @param payload The raw request body, exactly as received
+     * @param signature The Stripe-Signature header
+     * @return true if the event was enqueued, false if it is a redelivery or a type we do not handle
+     * @throws StripeException if the signature is invalid or the event cannot be read
+     */
+    public boolean receive(String payload, String signature) throws StripeException {
+        if (webhookSecret == null || webhookSecret.isBlank()) {
+            throw new IllegalStateException("Stripe webhook secret is not configured");
+        }
+
+        Event event = Webhook.constructEvent(payload, signature, webhookSecret);
+        if (!HANDLED_EVENT_TYPES.contains(event.getType())) {
+            return false;
+        }
+
+        // The typed object is absent when the event's API version differs from the SDK's; the id is all we need
+        EventDataObjectDeserializer deserializer = event.getDataObjectDeserializer();
+        Optional<StripeObject> object = deserializer.getObject();
+        String paymentIntentId = object.isPresent()
+                ? ((PaymentIntent) object.get()).getId()
+                : JsonParser.parseString(deserializer.getRawJson()).getAsJsonObject().get("id").getAsString();
+
+        return ingest(event.getId(), event.getType(), paymentIntentId);
+    }
+
+    /**
+     * Enqueue a payment event, dropping redeliveries of an event id already seen
+     * @param eventId The provider's event id
+     * @param eventType One of the PaymentWebhookEvent event types
+     * @param paymentIntentId The payment intent the event is about
+     * @return true if the event was new
+     */
+    public boolean ingest(String eventId, String eventType, String paymentIntentId) {
+        boolean inserted = paymentWebhookEventRepository.insertIfAbsent(eventId, eventType, paymentIntentId,
+                LocalDateTime.now()) == 1;
+        // Only a newly stored event feeds the cache: a redelivery carries nothing new, and a failed insert is
+        // answered with 503 and redelivered. The cache itself never replaces a terminal status.
+        if (inserted) {
+            paymentIntentStatusCache.put(paymentIntentId, intentStatusFor(eventType));
+        }
+        return inserted;
+    }
+
+    // The intent status each handled event type implies; a failed payment returns to awaiting a payment method
+    private static String intentStatusFor(String eventType) {
+        return switch (eventType) {
+            case PaymentWebhookEvent.PAYMENT_SUCCEEDED -> PaymentGatewayIntent.SUCCEEDED;
+            case PaymentWebhookEvent.PAYMENT_CANCELED -> PaymentGatewayIntent.CANCELED;
+            case PaymentWebhookEvent.PAYMENT_FAILED -> PaymentGatewayIntent.REQUIRES_PAYMENT_METHOD;
+            default -> null;
+        };
+    }
+
+    // Apply queued events to orders, batch by batch; SKIP LOCKED lets several nodes run the worker
+    @Scheduled(fixedDelayString = "${stripe.webhook.poll-interval-ms:500}")
+    public void processPendingEvents() {
+        for (int i = 0; i < MAX_BATCHES_PER_POLL; i++) {
+            Integer processed = transactionTemplate.execute(status -> processBatch());
+            if (processed == null || processed < batchSize) {
+                return;
+            }
+        }
+    }
+
+    // Remove processed events past the retention window; it must exceed the provider's redelivery window
+    @Scheduled(cron = "${stripe.webhook.cleanup-cron:0 45 * * * *}")
+    public void purgeProcessedEvents() {
+        LocalDateTime before = LocalDateTime.now().minusDays(retentionDays);
+        int deleted;
+        do {
+            deleted = transactionTemplate.execute(status ->
+                    paymentWebhookEventRepository.deleteProcessedBefore(before, batchSize));
+        } while (deleted == batchSize);
+    }
+
+    private int processBatch() {
+        List<PaymentWebhookEvent> batch = paymentWebhookEventRepository.lockNextBatch(batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        Map<String, Set<String>> intentsByType = batch.stream()
+                .collect(Collectors.groupingBy(PaymentWebhookEvent::getEventType,
+                        Collectors.mapping(PaymentWebhookEvent::getPaymentIntentId, Collectors.toSet())));
+
+        PaymentOutcomeService.AppliedOutcomes outcomes = paymentOutcomeService.apply(
+                intentsByType.getOrDefault(PaymentWebhookEvent.PAYMENT_SUCCEEDED, Set.of()),
+                intentsByType.getOrDefault(PaymentWebhookEvent.PAYMENT_FAILED, Set.of()),
+                intentsByType.getOrDefault(PaymentWebhookEvent.PAYMENT_CANCELED, Set.of()));
+
+        batch.forEach(PaymentWebhookEvent::markProcessed);
+        paymentWebhookEventRepository.saveAll(batch);
+
+        log.debug("Applied {} webhook events, {} orders changed", batch.size(), outcomes.getChangedOrderIds().size());
+        return batch.size();
+    }
+}
@@ -166,8 +166,8 @@ public class ProductService {
         return mapToResponse(updatedProduct);
     }
 
-    // Helper method to map entity to response DTO
-    private ProductResponse mapToResponse(Product product) {
+    // Helper method to map entity to response DTO (package-private for HotPathBenchmark)
+    ProductResponse mapToResponse(Product product) {
         ProductResponse response = new ProductResponse();
         response.setId(product.getId());
         response.setName(product.getName());
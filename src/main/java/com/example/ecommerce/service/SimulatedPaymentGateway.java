@@ -0,0 +1,169 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.model.PaymentWebhookEvent;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process payment gateway for offline load tests, active with the "payment-sim" profile.
+ * Every call sleeps for a log-normally distributed latency and may fail with PaymentGatewayException.
+ * Created intents settle on their own after a delay, as if the customer had paid (or been declined),
+ * and the outcome is fed to PaymentWebhookService exactly like a real webhook delivery.
+ */
+@Component
+@Profile("payment-sim")
+@Qualifier(PaymentGateway.PROVIDER)
+public class SimulatedPaymentGateway implements PaymentGateway {
+
+    private static final Logger log = LoggerFactory.getLogger(SimulatedPaymentGateway.class);
+
+    // z-score of the 99th percentile of a standard normal distribution
+    private static final double Z_P99 = 2.326;
+
+    private final PaymentWebhookService paymentWebhookService;
+    private final Map<String, PaymentGatewayIntent> intents = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler =
+            Executors.newScheduledThreadPool(1, Thread.ofVirtual().name("payment-sim-", 0).factory());
+
+    @Value("${payment.sim.latency-median-ms:120}")
+    private double latencyMedianMs;
+
+    @Value("${payment.sim.latency-p99-ms:600}")
+    private double latencyP99Ms;
+
+    @Value("${payment.sim.error-rate:0.0}")
+    private double errorRate;
+
+    @Value("${payment.sim.decline-rate:0.02}")
+    private double declineRate;
+
+    @Value("${payment.sim.settle-delay-ms:500}")
+    private long settleDelayMs;
+
+    @Value("${payment.sim.emit-webhooks:true}")
+    private boolean emitWebhooks;
+
+    @Value("${payment.sim.retention-ms:600000}")
+    private long retentionMs;
+
+    public SimulatedPaymentGateway(PaymentWebhookService paymentWebhookService) {
+        this.paymentWebhookService = paymentWebhookService;
+    }
+
+    @Override
+    public PaymentGatewayIntent createIntent(long amountInCents, String currency, Map<String, String> metadata,
+                                             String description) {
+        simulateCall("create");
+
+        String id = "pi_sim_" + UUID.randomUUID().toString().replace("-", "");
+        PaymentGatewayIntent intent = new PaymentGatewayIntent(id, id + "_secret_sim",
+                PaymentGatewayIntent.REQUIRES_PAYMENT_METHOD, amountInCents, currency);
+        intents.put(id, intent);
+
+        scheduler.schedule(() -> settle(id), settleDelayMs, TimeUnit.MILLISECONDS);
+        return intent;
+    }
+
+    @Override
+    public PaymentGatewayIntent retrieveIntent(String paymentIntentId) {
+        simulateCall("retrieve");
+        return find(paymentIntentId);
+    }
+
+    @Override
+    public PaymentGatewayIntent cancelIntent(String paymentIntentId) {
+        simulateCall("cancel");
+        PaymentGatewayIntent current = find(paymentIntentId);
+        if (current.isSucceeded()) {
+            throw new PaymentGatewayException("Simulated gateway: cannot cancel a succeeded payment intent");
+        }
+
+        PaymentGatewayIntent cancelled = transition(current, PaymentGatewayIntent.CANCELED);
+        emitWebhook(PaymentWebhookEvent.PAYMENT_CANCELED, paymentIntentId);
+        return cancelled;
+    }
+
+    @Override
+    public String getName() {
+        return "simulated";
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    // The customer "pays": succeed or decline, then notify as a webhook would
+    private void settle(String paymentIntentId) {
+        PaymentGatewayIntent current = intents.get(paymentIntentId);
+        if (current == null || !PaymentGatewayIntent.REQUIRES_PAYMENT_METHOD.equals(current.getStatus())) {
+            return;
+        }
+
+        if (ThreadLocalRandom.current().nextDouble() < declineRate) {
+            emitWebhook(PaymentWebhookEvent.PAYMENT_FAILED, paymentIntentId);
+        } else {
+            transition(current, PaymentGatewayIntent.SUCCEEDED);
+            emitWebhook(PaymentWebhookEvent.PAYMENT_SUCCEEDED, paymentIntentId);
+        }
+
+        scheduler.schedule(() -> intents.remove(paymentIntentId), retentionMs, TimeUnit.MILLISECONDS);
+    }
+
+    private PaymentGatewayIntent transition(PaymentGatewayIntent current, String status) {
+        PaymentGatewayIntent next = new PaymentGatewayIntent(current.getId(), current.getClientSecret(),
+                status, current.getAmount(), current.getCurrency());
+        intents.put(current.getId(), next);
+        return next;
+    }
+
+    private PaymentGatewayIntent find(String paymentIntentId) {
+        PaymentGatewayIntent intent = intents.get(paymentIntentId);
+        if (intent == null) {
+            throw new PaymentGatewayException("Simulated gateway: no such payment intent: " + paymentIntentId);
+        }
+        return intent;
+    }
+
+    private void emitWebhook(String eventType, String paymentIntentId) {
+        if (!emitWebhooks) {
+            return;
+        }
+        try {
+            paymentWebhookService.ingest("evt_sim_" + UUID.randomUUID(), eventType, paymentIntentId);
+        } catch (RuntimeException e) {
+            log.warn("Simulated webhook {} for {} was not stored: {}", eventType, paymentIntentId, e.getMessage());
+        }
+    }
+
+    // Log-normal latency fitted to the configured median and p99, then an injected failure if drawn
+    private void simulateCall(String operation) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double sigma = Math.log(Math.max(latencyP99Ms, latencyMedianMs) / latencyMedianMs) / Z_P99;
+        long latencyMs = Math.round(latencyMedianMs * Math.exp(sigma * random.nextGaussian()));
+
+        try {
+            Thread.sleep(latencyMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PaymentGatewayException("Simulated gateway: interrupted during " + operation, e, true);
+        }
+
+        if (random.nextDouble() < errorRate) {
+            throw new PaymentGatewayException("Simulated gateway: injected failure during " + operation, null, true);
+        }
+    }
+}
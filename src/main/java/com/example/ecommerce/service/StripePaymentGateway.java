@@ -0,0 +1,78 @@
+package com.example.ecommerce.service;
+
+import com.stripe.exception.StripeException;
+import com.stripe.model.PaymentIntent;
+import com.stripe.param.PaymentIntentCreateParams;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+@Component
+@Profile("!payment-sim")
+@Qualifier(PaymentGateway.PROVIDER)
+public class StripePaymentGateway implements PaymentGateway {
+
+    @Override
+    public PaymentGatewayIntent createIntent(long amountInCents, String currency, Map<String, String> metadata,
+                                             String description) {
+        PaymentIntentCreateParams params = PaymentIntentCreateParams.builder()
+                .setAmount(amountInCents)
+                .setCurrency(currency)
+                .putAllMetadata(metadata)
+                .setDescription(description)
+                .setAutomaticPaymentMethods(
+                        PaymentIntentCreateParams.AutomaticPaymentMethods.builder()
+                                .setEnabled(true)
+                                .build()
+                )
+                .build();
+
+        try {
+            return toGatewayIntent(PaymentIntent.create(params));
+        } catch (StripeException e) {
+            throw toGatewayException(e);
+        }
+    }
+
+    @Override
+    public PaymentGatewayIntent retrieveIntent(String paymentIntentId) {
+        try {
+            return toGatewayIntent(PaymentIntent.retrieve(paymentIntentId));
+        } catch (StripeException e) {
+            throw toGatewayException(e);
+        }
+    }
+
+    @Override
+    public PaymentGatewayIntent cancelIntent(String paymentIntentId) {
+        try {
+            return toGatewayIntent(PaymentIntent.retrieve(paymentIntentId).cancel());
+        } catch (StripeException e) {
+            throw toGatewayException(e);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "stripe";
+    }
+
+    // Network errors, 5xx and rate limiting are the provider's trouble; other errors reject our request
+    private PaymentGatewayException toGatewayException(StripeException e) {
+        Integer statusCode = e.getStatusCode();
+        boolean transientFailure = statusCode == null || statusCode >= 500 || statusCode == 429;
+        return new PaymentGatewayException("Stripe error: " + e.getMessage(), e, transientFailure);
+    }
+
+    private PaymentGatewayIntent toGatewayIntent(PaymentIntent paymentIntent) {
+        return new PaymentGatewayIntent(
+                paymentIntent.getId(),
+                paymentIntent.getClientSecret(),
+                paymentIntent.getStatus(),
+                paymentIntent.getAmount(),
+                paymentIntent.getCurrency()
+        );
+    }
+}
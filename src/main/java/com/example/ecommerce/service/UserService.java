@@ -1,27 +1,38 @@
 package com.example.ecommerce.service;
 
 import com.example.ecommerce.dto.UserRegistrationRequest;
+import com.example.ecommerce.model.Role;
 import com.example.ecommerce.model.User;
 import com.example.ecommerce.repository.UserRepository;
 import com.example.ecommerce.security.JwtUtil;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import com.example.ecommerce.security.PasswordHasher;
+import com.example.ecommerce.security.PrincipalCache;
+import com.example.ecommerce.security.TokenVersionRegistry;
 import org.springframework.stereotype.Service;
 import com.example.ecommerce.dto.LoginRequest;
 
+import java.time.LocalDateTime;
+
 
 @Service
 public class UserService {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
     private final JwtUtil jwtUtil;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final PrincipalCache principalCache;
 
     public UserService(UserRepository userRepository,
-                       PasswordEncoder passwordEncoder,
-                       JwtUtil jwtUtil) {
+                       PasswordHasher passwordHasher,
+                       JwtUtil jwtUtil,
+                       TokenVersionRegistry tokenVersionRegistry,
+                       PrincipalCache principalCache) {
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHasher = passwordHasher;
         this.jwtUtil = jwtUtil;
+        this.tokenVersionRegistry = tokenVersionRegistry;
+        this.principalCache = principalCache;
     }
 
     public User loginUser(LoginRequest request) {
@@ -29,15 +40,42 @@ public class UserService {
         User user = userRepository.findByEmail(request.getEmail())
                 .orElseThrow(() -> new RuntimeException("Invalid email or password"));
 
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+        // Hashing runs on the bounded hashing pool; throws PasswordHashingUnavailableException when saturated
+        if (!passwordHasher.matches(request.getPassword(), user.getPassword())) {
             throw new RuntimeException("Invalid email or password");
         }
 
+        // Hashes made with a lower cost than the current one are replaced in the background
+        if (passwordHasher.needsUpgrade(user.getPassword())) {
+            Long userId = user.getId();
+            String currentHash = user.getPassword();
+            passwordHasher.upgradeInBackground(request.getPassword(),
+                    newHash -> userRepository.updatePasswordHash(userId, currentHash, newHash));
+        }
+
         return user;
     }
 
-    public String generateTokenForUser(String email) {
-        return jwtUtil.generateToken(email);
+    public String generateTokenForUser(User user) {
+        return jwtUtil.generateToken(user);
+    }
+
+    /**
+     * Change a user's role; tokens issued before carry the old role and stop working
+     * @param userId The user ID
+     * @param role The new role
+     * @return The updated user
+     */
+    public User changeUserRole(Long userId, Role role) {
+        int updated = userRepository.updateRoleAndRevokeTokens(userId, role, LocalDateTime.now());
+        if (updated == 0) {
+            throw new RuntimeException("User not found with id: " + userId);
+        }
+        tokenVersionRegistry.invalidate(userId);
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
+        principalCache.evict(user.getEmail());
+        return user;
     }
 
 
@@ -48,7 +86,7 @@ public class UserService {
         }
 
         // 🔐 Hash the password before saving
-        String hashedPassword = passwordEncoder.encode(request.getPassword());
+        String hashedPassword = passwordHasher.encode(request.getPassword());
 
         User user = new User(
                 request.getName(),
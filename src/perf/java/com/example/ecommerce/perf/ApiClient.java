@@ -0,0 +1,123 @@
+package com.example.ecommerce.perf;
+
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+
+/**
+ * Minimal JSON client for the harness; every call is timed into the LatencyReport under its endpoint name
+ * (the route template, e.g. "GET /api/products/{id}"), and non-2xx responses count as errors.
+ */
+public class ApiClient {
+
+    private final HttpClient http;
+    private final String baseUrl;
+    private final LatencyReport report;
+    private final ObjectMapper objectMapper;
+    private final Duration timeout;
+
+    public ApiClient(String baseUrl, LatencyReport report, ObjectMapper objectMapper, Duration timeout) {
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(timeout)
+                .build();
+        this.baseUrl = baseUrl;
+        this.report = report;
+        this.objectMapper = objectMapper;
+        this.timeout = timeout;
+    }
+
+    public Response get(String endpoint, String path, Map<String, String> headers) {
+        return send(endpoint, "GET", path, null, headers);
+    }
+
+    public Response post(String endpoint, String path, Object body, Map<String, String> headers) {
+        return send(endpoint, "POST", path, body, headers);
+    }
+
+    public Response patch(String endpoint, String path, Object body, Map<String, String> headers) {
+        return send(endpoint, "PATCH", path, body, headers);
+    }
+
+    private Response send(String endpoint, String method, String path, Object body, Map<String, String> headers) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(timeout)
+                .header("Accept", "application/json");
+        headers.forEach(request::header);
+        if (body == null) {
+            request.method(method, HttpRequest.BodyPublishers.noBody());
+        } else {
+            request.header("Content-Type", "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)));
+        }
+
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response = http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+            boolean error = response.statusCode() >= 400;
+            report.record(endpoint, System.nanoTime() - start, error);
+            return new Response(response.statusCode(), response.body(), response.headers().map(), objectMapper);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            report.record(endpoint, System.nanoTime() - start, true);
+            return Response.failed();
+        } catch (Exception e) {
+            // Timeouts and connection failures
+            report.record(endpoint, System.nanoTime() - start, true);
+            return Response.failed();
+        }
+    }
+
+    public static final class Response {
+
+        private final int status;
+        private final String body;
+        private final Map<String, List<String>> headers;
+        private final ObjectMapper objectMapper;
+
+        private Response(int status, String body, Map<String, List<String>> headers,
+                         ObjectMapper objectMapper) {
+            this.status = status;
+            this.body = body;
+            this.headers = headers;
+            this.objectMapper = objectMapper;
+        }
+
+        private static Response failed() {
+            return new Response(-1, null, Map.of(), null);
+        }
+
+        public boolean isOk() {
+            return status >= 200 && status < 300;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        // Parsed body, or empty for failures and empty bodies
+        public Optional<JsonNode> json() {
+            if (!isOk() || body == null || body.isEmpty()) {
+                return Optional.empty();
+            }
+            return Optional.of(objectMapper.readTree(body));
+        }
+
+        public Optional<String> header(String name) {
+            return headers.entrySet().stream()
+                    .filter(entry -> entry.getKey().equalsIgnoreCase(name))
+                    .flatMap(entry -> entry.getValue().stream())
+                    .findFirst();
+        }
+    }
+}
@@ -0,0 +1,675 @@
+package com.example.ecommerce.perf;
+
+import com.example.ecommerce.EcommerceApplication;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Synthetic dataset generator: bulk-loads a production-sized catalogue and order history with PostgreSQL COPY,
+ * so benchmarks and query plans can be reproduced at scale.
+ *
+ * Shape of the data:
+ *   a category tree of datagen.category-depth levels with datagen.category-fanout children per node; products
+ *   sit in the leaves, with leaf sizes and brands following a Zipf distribution and log-normal prices around a
+ *   per-category median (x.99 endings, ~12% discounted)
+ *   customers sharing one known password (datagen-password), user carts and expiring guest carts
+ *   orders spread over datagen.years with volume growing towards today, Zipfian product popularity and
+ *   customer activity, and statuses/timestamps consistent with the order's age
+ *
+ * Rows get explicit ids above every id already used (live rows, archived orders and items, which keep their
+ * ids, and the identity sequence), so the generator can run against a non-empty schema; identity sequences are
+ * moved past the loaded ids afterwards. Each table is split into id ranges that are copied in parallel, one
+ * connection and COPY stream per range. Random draws are seeded per fixed-size chunk of rows rather than per
+ * stream, so the output depends on the seed and the settings but not on datagen.threads.
+ *
+ * CLI: boots the application without a web server (Hibernate creates the schema) against the configured
+ * database, e.g.
+ *   mvn -Pperf test-compile exec:exec -Dperf.main=com.example.ecommerce.perf.DatasetGenerator \
+ *       -Dperf.args="-Dspring.datasource.url=jdbc:postgresql://localhost:5432/ecommerce_perf
+ *                    -Dspring.datasource.username=... -Dspring.datasource.password=... -Ddatagen.orders=5000000"
+ * LoadHarness runs it on its embedded database with -Dperf.dataset=true.
+ *
+ * Settings (system properties):
+ *   datagen.products (1000000), datagen.brands (5000), datagen.category-depth (4), datagen.category-fanout (6)
+ *   datagen.users (500000), datagen.cart-ratio (0.15): share of users with a cart, datagen.guest-carts (50000)
+ *   datagen.orders (3000000), datagen.years (3)
+ *   datagen.product-skew (1.1), datagen.customer-skew (0.8): Zipf exponents for popularity and activity
+ *   datagen.threads (4): parallel COPY streams, datagen.seed (42)
+ */
+public final class DatasetGenerator {
+
+    public static final String PASSWORD = "datagen-password";
+
+    private static final int BATCH_BYTES = 1 << 20;
+    private static final int MAX_ITEMS_PER_ORDER = 8;
+    private static final int CART_MAX_ITEMS = 5;
+    // Rows per random seed; streams get whole chunks
+    private static final int SEED_CHUNK_ROWS = 10_000;
+
+    // Archived rows keep their ids, so new ids must stay above them too
+    private static final Map<String, String> ARCHIVE_TABLES = Map.of(
+            "orders", "orders_archive",
+            "order_items", "order_items_archive");
+
+    private static final String[] DEPARTMENTS = {"Electronics", "Home", "Garden", "Fashion", "Sports", "Toys",
+            "Books", "Beauty", "Grocery", "Automotive", "Office", "Pets", "Health", "Music", "Outdoors", "Kitchen"};
+    private static final String[] ADJECTIVES = {"Wireless", "Organic", "Vintage", "Compact", "Premium", "Classic",
+            "Portable", "Ergonomic", "Waterproof", "Smart", "Handmade", "Lightweight", "Foldable", "Heavy-Duty"};
+    private static final String[] NOUNS = {"Headphones", "Backpack", "Lamp", "Keyboard", "Jacket", "Teapot",
+            "Speaker", "Notebook", "Blender", "Sneakers", "Watch", "Camera", "Chair", "Mug", "Tent", "Drill"};
+    private static final String[] BRAND_PREFIXES = {"Nord", "Acme", "Zen", "Vita", "Terra", "Luma", "Orbi",
+            "Peak", "Hale", "Brio", "Kova", "Sol", "Rivo", "Mira", "Axi", "Fjel"};
+    private static final String[] BRAND_SUFFIXES = {"tek", "works", "line", "craft", "wave", "form", "labs", "co",
+            "gear", "nest", "ware", "ly"};
+    private static final String[] FIRST_NAMES = {"Alex", "Sam", "Jordan", "Taylor", "Morgan", "Casey", "Riley",
+            "Jamie", "Avery", "Quinn", "Robin", "Drew", "Charlie", "Emery", "Finley", "Harper"};
+    private static final String[] LAST_NAMES = {"Smith", "Garcia", "Nguyen", "Muller", "Rossi", "Kowalski",
+            "Silva", "Jensen", "Tanaka", "Okafor", "Dubois", "Novak", "Ahmed", "Larsen", "Moreau", "Costa"};
+    // city, state, postal code prefix, country; earlier entries are picked more often
+    private static final String[][] CITIES = {
+            {"New York", "NY", "100", "US"}, {"Los Angeles", "CA", "900", "US"}, {"Chicago", "IL", "606", "US"},
+            {"Houston", "TX", "770", "US"}, {"Toronto", "ON", "M5V", "CA"}, {"London", null, "EC1", "GB"},
+            {"Berlin", null, "101", "DE"}, {"Paris", null, "750", "FR"}, {"Madrid", null, "280", "ES"},
+            {"Sydney", "NSW", "200", "AU"}};
+    private static final String[] STREETS = {"Main St", "Oak Ave", "Maple Rd", "High St", "Park Lane",
+            "Station Rd", "Church St", "Elm St"};
+
+    private final DataSource dataSource;
+    private final Settings settings;
+    private final LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+    private final LocalDateTime historyStart;
+
+    // Loaded catalogue, needed to price cart and order lines
+    private long firstProductId;
+    private int[] productPriceCents;
+
+    public DatasetGenerator(DataSource dataSource, Settings settings) {
+        this.dataSource = dataSource;
+        this.settings = settings;
+        this.historyStart = now.minusDays(365L * settings.years);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("spring.main.web-application-type", "none");
+        properties.put("spring.jpa.hibernate.ddl-auto", "update");
+        properties.put("spring.jpa.show-sql", "false");
+        properties.put("logging.level.root", "WARN");
+
+        // payment-sim: no gateway credentials needed to start the context
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(EcommerceApplication.class)
+                .profiles("payment-sim")
+                .properties(properties)
+                .run(args);
+        try {
+            new DatasetGenerator(context.getBean(DataSource.class), Settings.fromSystemProperties()).generate();
+        } finally {
+            context.close();
+        }
+    }
+
+    /**
+     * Load categories, products, users, carts and orders, then reset sequences and refresh planner statistics
+     */
+    public void generate() throws SQLException, InterruptedException {
+        long started = System.nanoTime();
+        System.out.printf("Generating dataset: %d products, %d users, %d orders over %d years, %d COPY streams%n",
+                settings.products, settings.users, settings.orders, settings.years, settings.threads);
+
+        long[] leafCategoryIds = loadCategories();
+        loadProducts(leafCategoryIds);
+        long firstUserId = loadUsers();
+        loadCarts(firstUserId);
+        loadOrders(firstUserId);
+
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            for (String table : List.of("categories", "products", "users", "carts", "cart_items", "orders",
+                    "order_items")) {
+                long maxId = maxId(table);
+                if (maxId > 0) {
+                    statement.execute("SELECT setval(pg_get_serial_sequence('" + table + "', 'id'), " + maxId + ")");
+                }
+                statement.execute("ANALYZE " + table);
+            }
+        }
+        System.out.printf("Dataset generated in %d s%n", (System.nanoTime() - started) / 1_000_000_000L);
+    }
+
+    // Breadth-first tree; returns the leaf ids products are assigned to
+    private long[] loadCategories() throws SQLException {
+        long firstId = maxId("categories") + 1;
+        List<long[]> levels = new ArrayList<>();
+        StringBuilder rows = new StringBuilder();
+        long nextId = firstId;
+        long[] parents = {0};
+        for (int depth = 0; depth < settings.categoryDepth; depth++) {
+            long[] level = new long[parents.length * settings.categoryFanout];
+            int index = 0;
+            for (long parent : parents) {
+                for (int child = 0; child < settings.categoryFanout; child++) {
+                    long id = nextId++;
+                    String name = depth == 0
+                            ? DEPARTMENTS[child % DEPARTMENTS.length] + (child < DEPARTMENTS.length ? "" : " " + child)
+                            : NOUNS[(int) (id % NOUNS.length)] + " " + (depth + 1) + "-" + (index + 1);
+                    rows.append(id).append('\t').append(name).append('\t')
+                            .append("Generated category ").append(id).append('\t')
+                            .append("datagen-").append(id).append('\t')
+                            .append(parent == 0 ? "\\N" : String.valueOf(parent)).append('\t')
+                            .append("t\t").append(historyStart).append('\t').append(historyStart).append('\n');
+                    level[index++] = id;
+                }
+            }
+            levels.add(level);
+            parents = level;
+        }
+        copy("categories", "id, name, description, slug, parent_id, active, created_at, updated_at", rows);
+        return levels.get(levels.size() - 1);
+    }
+
+    private void loadProducts(long[] leafCategoryIds) throws SQLException, InterruptedException {
+        firstProductId = maxId("products") + 1;
+        productPriceCents = new int[settings.products];
+
+        // Per-leaf median price, log-uniform between 5 and 500; leaf sizes and brands are Zipfian
+        SplittableRandom setup = new SplittableRandom(settings.seed);
+        double[] leafMedians = new double[leafCategoryIds.length];
+        for (int i = 0; i < leafMedians.length; i++) {
+            leafMedians[i] = Math.exp(Math.log(5) + setup.nextDouble() * (Math.log(500) - Math.log(5)));
+        }
+        Zipf leaves = new Zipf(leafCategoryIds.length, 1.0);
+        Zipf brands = new Zipf(settings.brands, 1.0);
+
+        runParallel("products", "products", settings.products,
+                "id, name, description, sku, price, discount_price, stock_quantity, active, featured, category_id, "
+                        + "image_url, brand, weight, created_at, updated_at",
+                (from, to, random, rows) -> {
+                    for (int i = from; i < to; i++) {
+                        long id = firstProductId + i;
+                        int leaf = leaves.sample(random) - 1;
+                        double price = leafMedians[leaf] * Math.exp(0.6 * random.nextGaussian());
+                        long priceCents = Math.max(99, Math.min(9_999_999, (long) price * 100 + 99));
+                        long discountCents = random.nextDouble() < 0.12
+                                ? Math.max(49, Math.round(priceCents * (0.6 + random.nextDouble() * 0.3)))
+                                : 0;
+                        productPriceCents[i] = (int) (discountCents > 0 ? discountCents : priceCents);
+                        LocalDateTime created = randomTime(random);
+
+                        rows.append(id).append('\t')
+                                .append(ADJECTIVES[random.nextInt(ADJECTIVES.length)]).append(' ')
+                                .append(NOUNS[random.nextInt(NOUNS.length)]).append(' ').append(id).append('\t')
+                                .append("Generated product ").append(id).append('\t')
+                                .append("DG-").append(id).append('\t');
+                        appendCents(rows, priceCents).append('\t');
+                        if (discountCents > 0) {
+                            appendCents(rows, discountCents);
+                        } else {
+                            rows.append("\\N");
+                        }
+                        rows.append('\t').append(random.nextInt(10) == 0 ? 0 : random.nextInt(1, 500)).append('\t')
+                                .append(random.nextInt(50) == 0 ? 'f' : 't').append('\t')
+                                .append(random.nextInt(200) == 0 ? 't' : 'f').append('\t')
+                                .append(leafCategoryIds[leaf]).append('\t')
+                                .append("https://images.example.com/products/").append(id).append(".jpg\t")
+                                .append(brandName(brands.sample(random) - 1)).append('\t');
+                        appendCents(rows, random.nextInt(5, 999)).append('\t')
+                                .append(created).append('\t').append(created).append('\n');
+                    }
+                });
+    }
+
+    private long loadUsers() throws SQLException, InterruptedException {
+        long firstUserId = maxId("users") + 1;
+        // One hash for everyone: hashing millions of passwords would dominate the run
+        String passwordHash = new BCryptPasswordEncoder(10).encode(PASSWORD);
+
+        runParallel("users", "users", settings.users, "id, name, email, password, role, token_version",
+                (from, to, random, rows) -> {
+                    for (int i = from; i < to; i++) {
+                        long id = firstUserId + i;
+                        rows.append(id).append('\t')
+                                .append(FIRST_NAMES[random.nextInt(FIRST_NAMES.length)]).append(' ')
+                                .append(LAST_NAMES[random.nextInt(LAST_NAMES.length)]).append('\t')
+                                .append("shopper").append(id).append("@datagen.test\t")
+                                .append(passwordHash).append("\tCUSTOMER\t0\n");
+                    }
+                });
+        return firstUserId;
+    }
+
+    // User carts for a share of customers, then guest carts; cart ids and item ids are derived from the row index
+    private void loadCarts(long firstUserId) throws SQLException, InterruptedException {
+        long firstCartId = maxId("carts") + 1;
+        long firstItemId = maxId("cart_items") + 1;
+        int userCarts = (int) (settings.users * settings.cartRatio);
+        int carts = userCarts + settings.guestCarts;
+        long userStride = Math.max(1, settings.users / Math.max(1, userCarts));
+        Zipf products = new Zipf(settings.products, settings.productSkew);
+        long productStride = coprimeStride(settings.products);
+
+        runParallel("carts", "carts", carts, "id, user_id, session_id, created_at, updated_at, expires_at",
+                (from, to, random, rows) -> {
+                    for (int i = from; i < to; i++) {
+                        long id = firstCartId + i;
+                        LocalDateTime created = now.minusMinutes(random.nextLong(1, 60 * 24 * 7));
+                        rows.append(id).append('\t');
+                        if (i < userCarts) {
+                            rows.append(firstUserId + i * userStride).append("\t\\N\t");
+                        } else {
+                            rows.append("\\N\tdatagen-guest-").append(id).append('\t');
+                        }
+                        rows.append(created).append('\t').append(created).append('\t');
+                        appendTime(rows, i < userCarts ? null : created.plusDays(7)).append('\n');
+                    }
+                });
+        runParallel("cart_items", "cart_items", carts,
+                "id, cart_id, product_id, quantity, price_at_addition, created_at, updated_at",
+                (from, to, random, rows) -> {
+                    for (int i = from; i < to; i++) {
+                        LocalDateTime created = now.minusMinutes(random.nextLong(1, 60 * 24 * 7));
+                        int[] lines = pickProducts(products, productStride, random.nextInt(1, CART_MAX_ITEMS + 1),
+                                random);
+                        for (int line = 0; line < lines.length; line++) {
+                            rows.append(firstItemId + (long) i * CART_MAX_ITEMS + line).append('\t')
+                                    .append(firstCartId + i).append('\t')
+                                    .append(firstProductId + lines[line]).append('\t')
+                                    .append(random.nextInt(1, 4)).append('\t');
+                            appendCents(rows, productPriceCents[lines[line]]).append('\t')
+                                    .append(created).append('\t').append(created).append('\n');
+                        }
+                    }
+                });
+    }
+
+    private void loadOrders(long firstUserId) throws SQLException, InterruptedException {
+        long firstOrderId = maxId("orders") + 1;
+        long firstItemId = maxId("order_items") + 1;
+        Zipf products = new Zipf(settings.products, settings.productSkew);
+        Zipf customers = new Zipf(settings.users, settings.customerSkew);
+        long productStride = coprimeStride(settings.products);
+        long customerStride = coprimeStride(settings.users);
+
+        // Both passes share the "orders" seed and draw in the same sequence, so they see the same order lines
+        runParallel("orders", "orders", settings.orders,
+                "id, order_number, user_id, status, subtotal, tax, shipping_cost, discount, total_amount, "
+                        + "shipping_name, shipping_address, shipping_city, shipping_state, shipping_postal_code, "
+                        + "shipping_country, shipping_phone, payment_method, payment_status, transaction_id, "
+                        + "created_at, updated_at, confirmed_at, shipped_at, delivered_at, cancelled_at",
+                (from, to, random, rows) -> {
+                    for (int i = from; i < to; i++) {
+                        int[] lines = pickProducts(products, productStride, orderLines(random), random);
+                        long subtotalCents = 0;
+                        for (int product : lines) {
+                            subtotalCents += (long) productPriceCents[product] * quantity(random);
+                        }
+                        long userId = firstUserId + ((customers.sample(random) - 1) * customerStride) % settings.users;
+                        appendOrder(rows, firstOrderId + i, userId, orderTime(i), subtotalCents, new OrderDetails(random));
+                    }
+                });
+        runParallel("order_items", "orders", settings.orders,
+                "id, order_id, product_id, quantity, price_at_purchase, created_at",
+                (from, to, random, rows) -> {
+                    for (int i = from; i < to; i++) {
+                        int[] lines = pickProducts(products, productStride, orderLines(random), random);
+                        LocalDateTime created = orderTime(i);
+                        for (int line = 0; line < lines.length; line++) {
+                            rows.append(firstItemId + (long) i * MAX_ITEMS_PER_ORDER + line).append('\t')
+                                    .append(firstOrderId + i).append('\t')
+                                    .append(firstProductId + lines[line]).append('\t')
+                                    .append(quantity(random)).append('\t');
+                            appendCents(rows, productPriceCents[lines[line]]).append('\t')
+                                    .append(created).append('\n');
+                        }
+                        // Keep the stream aligned with the orders pass
+                        customers.sample(random);
+                        new OrderDetails(random);
+                    }
+                });
+    }
+
+    private void appendOrder(StringBuilder rows, long id, long userId, LocalDateTime created, long subtotalCents,
+                             OrderDetails details) {
+        long taxCents = Math.round(subtotalCents * 0.08);
+        long shippingCents = subtotalCents >= 5000 ? 0 : 599;
+        String[] city = CITIES[details.city];
+
+        String status = orderStatus(created, details.statusRoll);
+        LocalDateTime confirmed = "PENDING".equals(status) ? null : created.plusMinutes(1 + details.minutes % 30);
+        LocalDateTime shipped = switch (status) {
+            case "SHIPPED", "DELIVERED", "REFUNDED" -> created.plusHours(12 + details.minutes % 60);
+            default -> null;
+        };
+        LocalDateTime delivered = shipped != null && !"SHIPPED".equals(status)
+                ? shipped.plusDays(2 + details.minutes % 5)
+                : null;
+        LocalDateTime cancelled = "CANCELLED".equals(status) ? created.plusHours(1 + details.minutes % 24) : null;
+        String paymentStatus = switch (status) {
+            case "PENDING" -> "PENDING";
+            case "CANCELLED", "REFUNDED" -> "REFUNDED";
+            default -> "PAID";
+        };
+        LocalDateTime updated = latest(created, confirmed, shipped, delivered, cancelled);
+
+        rows.append(id).append('\t')
+                .append("ORD-").append(created.toLocalDate().toString().replace("-", ""))
+                .append("-DG").append(Long.toHexString(id).toUpperCase()).append('\t')
+                .append(userId).append('\t').append(status).append('\t');
+        appendCents(rows, subtotalCents).append('\t');
+        appendCents(rows, taxCents).append('\t');
+        appendCents(rows, shippingCents).append("\t0.00\t");
+        appendCents(rows, subtotalCents + taxCents + shippingCents).append('\t')
+                .append(FIRST_NAMES[details.minutes % FIRST_NAMES.length]).append(' ')
+                .append(LAST_NAMES[(details.minutes / 7) % LAST_NAMES.length]).append('\t')
+                .append(1 + details.minutes % 999).append(' ')
+                .append(STREETS[details.minutes % STREETS.length]).append('\t')
+                .append(city[0]).append('\t').append(city[1] == null ? "\\N" : city[1]).append('\t')
+                .append(city[2]).append(10 + details.minutes % 90).append('\t')
+                .append(city[3]).append('\t')
+                .append("+1555").append(1_000_000 + id % 9_000_000).append('\t')
+                .append(confirmed == null ? "\\N" : "simulated").append('\t')
+                .append(paymentStatus).append('\t')
+                .append(confirmed == null ? "\\N" : "pi_dg_" + id).append('\t')
+                .append(created).append('\t').append(updated).append('\t');
+        appendTime(rows, confirmed).append('\t');
+        appendTime(rows, shipped).append('\t');
+        appendTime(rows, delivered).append('\t');
+        appendTime(rows, cancelled).append('\n');
+    }
+
+    // Recent orders are still moving through the pipeline; older ones are settled
+    private String orderStatus(LocalDateTime created, double roll) {
+        if (created.isAfter(now.minusDays(14))) {
+            if (roll < 0.10) return "PENDING";
+            if (roll < 0.25) return "CONFIRMED";
+            if (roll < 0.40) return "PROCESSING";
+            if (roll < 0.70) return "SHIPPED";
+            if (roll < 0.95) return "DELIVERED";
+            return "CANCELLED";
+        }
+        if (roll < 0.91) return "DELIVERED";
+        if (roll < 0.97) return "CANCELLED";
+        return "REFUNDED";
+    }
+
+    // Order time follows the order index, so ids increase with time; density grows linearly to 3x towards today
+    private LocalDateTime orderTime(int index) {
+        double p = (index + 0.5) / settings.orders;
+        double fraction = (-1 + Math.sqrt(1 + 8 * p)) / 2;
+        long seconds = ChronoUnit.SECONDS.between(historyStart, now);
+        return historyStart.plusSeconds((long) (fraction * seconds));
+    }
+
+    private LocalDateTime randomTime(SplittableRandom random) {
+        return historyStart.plusSeconds(random.nextLong(ChronoUnit.SECONDS.between(historyStart, now)));
+    }
+
+    // Up to count distinct products by popularity; a repeated pick is dropped, as the cart merges it into one line
+    private int[] pickProducts(Zipf products, long stride, int count, SplittableRandom random) {
+        int[] picked = new int[count];
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            // Popularity rank mapped through a stride so the best sellers are spread across the id range
+            int product = (int) (((products.sample(random) - 1) * stride) % settings.products);
+            boolean repeated = false;
+            for (int j = 0; j < distinct; j++) {
+                repeated |= picked[j] == product;
+            }
+            if (!repeated) {
+                picked[distinct++] = product;
+            }
+        }
+        return distinct == count ? picked : Arrays.copyOf(picked, distinct);
+    }
+
+    private static int orderLines(SplittableRandom random) {
+        int lines = 1;
+        while (lines < MAX_ITEMS_PER_ORDER && random.nextDouble() < 0.45) {
+            lines++;
+        }
+        return lines;
+    }
+
+    private static int quantity(SplittableRandom random) {
+        return random.nextInt(10) < 8 ? 1 : random.nextInt(2, 5);
+    }
+
+    private static long coprimeStride(long n) {
+        long stride = Math.max(1, (long) (n * 0.618));
+        while (gcd(stride, n) != 1) {
+            stride++;
+        }
+        return stride;
+    }
+
+    private static long gcd(long a, long b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+
+    private static String brandName(int index) {
+        int combinations = BRAND_PREFIXES.length * BRAND_SUFFIXES.length;
+        String name = BRAND_PREFIXES[index % BRAND_PREFIXES.length]
+                + BRAND_SUFFIXES[(index / BRAND_PREFIXES.length) % BRAND_SUFFIXES.length];
+        return index < combinations ? name : name + " " + (index / combinations + 1);
+    }
+
+    private static StringBuilder appendCents(StringBuilder rows, long cents) {
+        rows.append(cents / 100).append('.');
+        long fraction = cents % 100;
+        if (fraction < 10) {
+            rows.append('0');
+        }
+        return rows.append(fraction);
+    }
+
+    private static StringBuilder appendTime(StringBuilder rows, LocalDateTime time) {
+        return time == null ? rows.append("\\N") : rows.append(time);
+    }
+
+    private static LocalDateTime latest(LocalDateTime... times) {
+        LocalDateTime latest = times[0];
+        for (LocalDateTime time : times) {
+            if (time != null && time.isAfter(latest)) {
+                latest = time;
+            }
+        }
+        return latest;
+    }
+
+    // Highest id in use or already handed out: live rows, archived rows and the table's identity sequence
+    private long maxId(String table) throws SQLException {
+        String archiveTable = ARCHIVE_TABLES.get(table);
+        String query = "SELECT GREATEST((SELECT COALESCE(MAX(id), 0) FROM " + table + "), "
+                + (archiveTable == null ? "" : "(SELECT COALESCE(MAX(id), 0) FROM " + archiveTable + "), ")
+                + "COALESCE(pg_sequence_last_value(pg_get_serial_sequence('" + table + "', 'id')::regclass), 0))";
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery(query)) {
+            result.next();
+            return result.getLong(1);
+        }
+    }
+
+    // Splits [0, count) into one range of whole seed chunks per stream; each range is generated and copied on its
+    // own connection
+    private void runParallel(String table, String seedKey, int count, String columns, RowWriter writer)
+            throws SQLException, InterruptedException {
+        long started = System.nanoTime();
+        int chunks = (count + SEED_CHUNK_ROWS - 1) / SEED_CHUNK_ROWS;
+        int streams = Math.max(1, Math.min(settings.threads, chunks));
+        ExecutorService executor = Executors.newFixedThreadPool(streams);
+        try {
+            List<Future<Long>> results = new ArrayList<>();
+            long seed = settings.seed * 31 + seedKey.hashCode() * 1_000_003L;
+            for (int stream = 0; stream < streams; stream++) {
+                int from = (int) Math.min(count, (long) chunks * stream / streams * SEED_CHUNK_ROWS);
+                int to = (int) Math.min(count, (long) chunks * (stream + 1) / streams * SEED_CHUNK_ROWS);
+                results.add(executor.submit(() -> copyRange(table, columns, from, to, seed, writer)));
+            }
+            long rows = 0;
+            for (Future<Long> result : results) {
+                rows += result.get();
+            }
+            double seconds = (System.nanoTime() - started) / 1e9;
+            System.out.printf("  %-12s %,12d rows in %6.1f s (%,.0f rows/s)%n", table, rows, seconds,
+                    rows / Math.max(seconds, 0.001));
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException sqlException) {
+                throw sqlException;
+            }
+            throw new RuntimeException("Loading " + table + " failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private long copyRange(String table, String columns, int from, int to, long seed, RowWriter writer)
+            throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(true);
+            CopyIn copy = connection.unwrap(PGConnection.class).getCopyAPI()
+                    .copyIn("COPY " + table + " (" + columns + ") FROM STDIN");
+            try {
+                StringBuilder rows = new StringBuilder(BATCH_BYTES + 4096);
+                // Divides SEED_CHUNK_ROWS, so every chunk starts on a batch boundary
+                int batch = 1000;
+                SplittableRandom random = null;
+                for (int start = from; start < to; start += batch) {
+                    if (start % SEED_CHUNK_ROWS == 0) {
+                        random = new SplittableRandom(seed + start / SEED_CHUNK_ROWS);
+                    }
+                    writer.write(start, Math.min(to, start + batch), random, rows);
+                    if (rows.length() >= BATCH_BYTES) {
+                        flush(copy, rows);
+                    }
+                }
+                flush(copy, rows);
+                return copy.endCopy();
+            } catch (SQLException | RuntimeException e) {
+                if (copy.isActive()) {
+                    copy.cancelCopy();
+                }
+                throw e;
+            }
+        }
+    }
+
+    private void copy(String table, String columns, StringBuilder rows) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            CopyIn copy = connection.unwrap(PGConnection.class).getCopyAPI()
+                    .copyIn("COPY " + table + " (" + columns + ") FROM STDIN");
+            flush(copy, rows);
+            System.out.printf("  %-12s %,12d rows%n", table, copy.endCopy());
+        }
+    }
+
+    private static void flush(CopyIn copy, StringBuilder rows) throws SQLException {
+        if (rows.isEmpty()) {
+            return;
+        }
+        byte[] bytes = rows.toString().getBytes(StandardCharsets.UTF_8);
+        copy.writeToCopy(bytes, 0, bytes.length);
+        rows.setLength(0);
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        // Append COPY text rows for indexes [from, to) of the table
+        void write(int from, int to, SplittableRandom random, StringBuilder rows);
+    }
+
+    // Per-order draws besides the lines, taken in one place so both order passes consume the same sequence
+    private static final class OrderDetails {
+
+        private final double statusRoll;
+        private final int minutes;
+        private final int city;
+
+        private OrderDetails(SplittableRandom random) {
+            this.statusRoll = random.nextDouble();
+            this.minutes = random.nextInt(1 << 20);
+            // Earlier cities are more likely
+            this.city = Math.min(CITIES.length - 1, (int) (-Math.log(1 - random.nextDouble()) * 2.5));
+        }
+    }
+
+    /**
+     * Zipf-like rank sampler over 1..n by inverting the continuous power-law CDF; O(1) per sample,
+     * close enough to a true Zipf for popularity skew
+     */
+    static final class Zipf {
+
+        private final int n;
+        private final double oneMinusS;
+        private final double span;
+
+        Zipf(int n, double exponent) {
+            this.n = Math.max(1, n);
+            this.oneMinusS = 1 - exponent;
+            this.span = Math.abs(oneMinusS) < 1e-9 ? Math.log(this.n + 1) : Math.pow(this.n + 1, oneMinusS) - 1;
+        }
+
+        int sample(SplittableRandom random) {
+            double u = random.nextDouble();
+            double x = Math.abs(oneMinusS) < 1e-9
+                    ? Math.exp(u * span)
+                    : Math.pow(u * span + 1, 1 / oneMinusS);
+            return (int) Math.min(n, Math.max(1, (long) x));
+        }
+    }
+
+    public static final class Settings {
+
+        int products = 1_000_000;
+        int brands = 5_000;
+        int categoryDepth = 4;
+        int categoryFanout = 6;
+        int users = 500_000;
+        double cartRatio = 0.15;
+        int guestCarts = 50_000;
+        int orders = 3_000_000;
+        int years = 3;
+        double productSkew = 1.1;
+        double customerSkew = 0.8;
+        int threads = 4;
+        long seed = 42;
+
+        public static Settings fromSystemProperties() {
+            Settings settings = new Settings();
+            settings.products = Integer.getInteger("datagen.products", settings.products);
+            settings.brands = Integer.getInteger("datagen.brands", settings.brands);
+            settings.categoryDepth = Integer.getInteger("datagen.category-depth", settings.categoryDepth);
+            settings.categoryFanout = Integer.getInteger("datagen.category-fanout", settings.categoryFanout);
+            settings.users = Integer.getInteger("datagen.users", settings.users);
+            settings.cartRatio = Double.parseDouble(System.getProperty("datagen.cart-ratio", "0.15"));
+            settings.guestCarts = Integer.getInteger("datagen.guest-carts", settings.guestCarts);
+            settings.orders = Integer.getInteger("datagen.orders", settings.orders);
+            settings.years = Integer.getInteger("datagen.years", settings.years);
+            settings.productSkew = Double.parseDouble(System.getProperty("datagen.product-skew", "1.1"));
+            settings.customerSkew = Double.parseDouble(System.getProperty("datagen.customer-skew", "0.8"));
+            settings.threads = Integer.getInteger("datagen.threads", settings.threads);
+            settings.seed = Long.getLong("datagen.seed", settings.seed);
+            return settings;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.ecommerce.perf;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-endpoint latency histograms (microseconds, HdrHistogram) and error counts.
+ * Recording is thread-safe and allocation-free once an endpoint has been seen.
+ */
+public class LatencyReport {
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    public void record(String endpoint, long latencyNanos, boolean error) {
+        Endpoint stats = endpoints.computeIfAbsent(endpoint, name -> new Endpoint());
+        stats.recorder.recordValue(Math.max(1, TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+        if (error) {
+            stats.errors.increment();
+        }
+    }
+
+    // Discard everything recorded so far, e.g. at the end of the warmup
+    public void reset() {
+        for (Endpoint stats : endpoints.values()) {
+            stats.recorder.reset();
+            stats.errors.reset();
+        }
+    }
+
+    /**
+     * Print one line per endpoint: request count, throughput, error rate and latency percentiles in ms
+     * @param out Destination
+     * @param elapsedSeconds Length of the measured interval
+     */
+    public void print(PrintStream out, double elapsedSeconds) {
+        out.printf("%-44s %8s %9s %7s %9s %9s %9s %9s %9s%n",
+                "endpoint", "count", "req/s", "err%", "p50", "p90", "p99", "p99.9", "max");
+        Map<String, Endpoint> sorted = new TreeMap<>(endpoints);
+        for (Map.Entry<String, Endpoint> entry : sorted.entrySet()) {
+            Histogram histogram = entry.getValue().recorder.getIntervalHistogram();
+            long count = histogram.getTotalCount();
+            if (count == 0) {
+                continue;
+            }
+            long errors = entry.getValue().errors.sum();
+            out.printf("%-44s %8d %9.1f %6.2f%% %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                    entry.getKey(), count, count / elapsedSeconds, 100.0 * errors / count,
+                    millis(histogram.getValueAtPercentile(50)),
+                    millis(histogram.getValueAtPercentile(90)),
+                    millis(histogram.getValueAtPercentile(99)),
+                    millis(histogram.getValueAtPercentile(99.9)),
+                    millis(histogram.getMaxValue()));
+        }
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static final class Endpoint {
+        // Auto-resizing, 3 significant digits
+        private final Recorder recorder = new Recorder(3);
+        private final LongAdder errors = new LongAdder();
+    }
+}
@@ -0,0 +1,317 @@
+package com.example.ecommerce.perf;
+
+import com.example.ecommerce.EcommerceApplication;
+import com.example.ecommerce.model.Category;
+import com.example.ecommerce.model.Product;
+import com.example.ecommerce.model.Role;
+import com.example.ecommerce.model.User;
+import com.example.ecommerce.repository.CategoryRepository;
+import com.example.ecommerce.repository.ProductRepository;
+import com.example.ecommerce.repository.UserRepository;
+import com.example.ecommerce.security.JwtUtil;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import tools.jackson.databind.json.JsonMapper;
+
+import javax.sql.DataSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Offline load test: boots the application on an embedded PostgreSQL with the simulated payment gateway
+ * (profile payment-sim), seeds a catalogue and customers, then starts shopper sessions at fixed arrival rates
+ * (open model: new sessions arrive on a Poisson schedule whether or not earlier ones have finished, so a
+ * slow server builds a backlog the way real traffic would). Reports per-endpoint and per-scenario throughput,
+ * error rate and HDR latency percentiles to stdout and target/perf-report.txt.
+ *
+ * Settings (system properties):
+ *   perf.duration-seconds (60), perf.warmup-seconds (15)
+ *   perf.rate.browse (20), perf.rate.search (10), perf.rate.cart (3), perf.rate.checkout (3), perf.rate.admin (1)
+ *       sessions started per second, per scenario; 0 disables a scenario
+ *   perf.products (2000), perf.categories (20), perf.customers (200): size the customer pool to at least
+ *       (cart + checkout rate) x session length in seconds; sessions finding no free customer are counted
+ *       separately and left out of the latency report
+ *   perf.profiles: extra Spring profiles, e.g. virtual-threads; the active profiles head the report, so runs
+ *       with and without virtual-threads at the same rates compare the two thread models on this application
+ *   perf.bcrypt-cost (10), perf.payment-settle-ms (200), perf.request-timeout-ms (10000)
+ *   perf.max-in-flight (10000): sessions beyond this are dropped and counted, instead of exhausting memory
+ *   perf.dataset (false): load the DatasetGenerator dataset (datagen.* settings) before seeding, to test at scale
+ */
+public final class LoadHarness {
+
+    private static final String[] ADJECTIVES = {"wireless", "organic", "vintage", "compact", "premium", "classic",
+            "portable", "ergonomic", "waterproof", "smart", "handmade", "lightweight"};
+    private static final String[] NOUNS = {"headphones", "backpack", "lamp", "keyboard", "jacket", "teapot",
+            "speaker", "notebook", "blender", "sneakers", "watch", "camera", "chair", "mug", "tent"};
+    private static final String CUSTOMER_PASSWORD = "perf-password-1";
+
+    private LoadHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        long durationSeconds = Long.getLong("perf.duration-seconds", 60);
+        long warmupSeconds = Long.getLong("perf.warmup-seconds", 15);
+        Map<String, Double> rates = new LinkedHashMap<>();
+        for (String scenario : List.of("browse", "search", "cart", "checkout", "admin")) {
+            double defaultRate = switch (scenario) {
+                case "browse" -> 20;
+                case "search" -> 10;
+                case "admin" -> 1;
+                default -> 3;
+            };
+            rates.put(scenario, Double.parseDouble(System.getProperty("perf.rate." + scenario,
+                    String.valueOf(defaultRate))));
+        }
+
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder().start()) {
+            ConfigurableApplicationContext context = startApplication(postgres.getJdbcUrl("postgres", "postgres"));
+            try {
+                run(context, rates, warmupSeconds, durationSeconds);
+            } finally {
+                context.close();
+            }
+        }
+        // HTTP client and session threads must not keep the JVM alive
+        System.exit(0);
+    }
+
+    private static ConfigurableApplicationContext startApplication(String jdbcUrl) {
+        List<String> profiles = new ArrayList<>(List.of("payment-sim"));
+        String extraProfiles = System.getProperty("perf.profiles", "");
+        for (String profile : extraProfiles.split(",")) {
+            if (!profile.isBlank()) {
+                profiles.add(profile.trim());
+            }
+        }
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("spring.datasource.url", jdbcUrl);
+        properties.put("spring.datasource.username", "postgres");
+        properties.put("spring.datasource.password", "postgres");
+        properties.put("spring.jpa.hibernate.ddl-auto", "update");
+        properties.put("spring.jpa.show-sql", "false");
+        properties.put("spring.jpa.open-in-view", "false");
+        properties.put("server.port", "0");
+        properties.put("jwt.secret", "perf-harness-secret-" + Long.toHexString(ThreadLocalRandom.current().nextLong())
+                + "-padding-to-32-bytes");
+        properties.put("jwt.expiration", "86400000");
+        properties.put("payment.sim.settle-delay-ms", System.getProperty("perf.payment-settle-ms", "200"));
+        properties.put("security.bcrypt.cost", System.getProperty("perf.bcrypt-cost", "10"));
+        // The harness drives a handful of clients at high rates; per-IP limits would reject most of it
+        properties.put("rate-limit.enabled", "false");
+        properties.put("cart.token.cookie-secure", "false");
+        properties.put("logging.level.root", "WARN");
+
+        return new SpringApplicationBuilder(EcommerceApplication.class)
+                .profiles(profiles.toArray(String[]::new))
+                .properties(properties)
+                .run();
+    }
+
+    private static void run(ConfigurableApplicationContext context, Map<String, Double> rates,
+                            long warmupSeconds, long durationSeconds) throws InterruptedException, IOException {
+        int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+        LatencyReport report = new LatencyReport();
+        ApiClient api = new ApiClient("http://localhost:" + port, report, JsonMapper.builder().build(),
+                Duration.ofMillis(Long.getLong("perf.request-timeout-ms", 10_000)));
+
+        if (Boolean.getBoolean("perf.dataset")) {
+            try {
+                new DatasetGenerator(context.getBean(DataSource.class), DatasetGenerator.Settings.fromSystemProperties())
+                        .generate();
+            } catch (SQLException e) {
+                throw new IOException("Dataset generation failed", e);
+            }
+        }
+        ShopperScenarios scenarios = seed(context, api);
+        Map<String, Scenario> byName = Map.of(
+                "browse", scenarios::browse,
+                "search", scenarios::search,
+                "cart", scenarios::guestCartAndMerge,
+                "checkout", scenarios::checkoutAndPay,
+                "admin", scenarios::adminStatusUpdate
+        );
+
+        ExecutorService sessions = Executors.newVirtualThreadPerTaskExecutor();
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicLong dropped = new AtomicLong();
+        AtomicLong noFreeCustomer = new AtomicLong();
+        int maxInFlight = Integer.getInteger("perf.max-in-flight", 10_000);
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+
+        List<Thread> generators = new ArrayList<>();
+        rates.forEach((name, rate) -> {
+            if (rate <= 0) {
+                return;
+            }
+            Scenario scenario = byName.get(name);
+            generators.add(Thread.ofPlatform().name("perf-arrivals-" + name).start(() ->
+                    generateArrivals(name, rate, scenario, end, sessions, inFlight, dropped, noFreeCustomer,
+                            maxInFlight, report)));
+        });
+
+        System.out.printf("Warming up for %d s, then measuring for %d s at %s sessions/s%n",
+                warmupSeconds, durationSeconds, rates);
+        sleepUntil(measureFrom);
+        report.reset();
+        dropped.set(0);
+        noFreeCustomer.set(0);
+        sleepUntil(end);
+        for (Thread generator : generators) {
+            generator.join();
+        }
+
+        // Snapshot now; sessions still running belong to no interval
+        Path reportFile = Path.of(System.getProperty("perf.report", "target/perf-report.txt"));
+        Files.createDirectories(reportFile.toAbsolutePath().getParent());
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        PrintStream text = new PrintStream(buffer, true, StandardCharsets.UTF_8);
+        text.printf("Profiles: %s%n", String.join(",", context.getEnvironment().getActiveProfiles()));
+        report.print(text, durationSeconds);
+        text.printf("%nSessions dropped (in flight > %d): %d%n", maxInFlight, dropped.get());
+        text.printf("Sessions without a free customer (raise perf.customers): %d%n", noFreeCustomer.get());
+        String output = buffer.toString(StandardCharsets.UTF_8);
+        System.out.print(output);
+        Files.writeString(reportFile, output);
+        System.out.println("Report written to " + reportFile.toAbsolutePath());
+
+        sessions.shutdownNow();
+    }
+
+    // Poisson arrivals at the given rate until the end time
+    private static void generateArrivals(String name, double ratePerSecond, Scenario scenario, long end,
+                                         ExecutorService sessions, AtomicInteger inFlight, AtomicLong dropped,
+                                         AtomicLong noFreeCustomer,
+                                         int maxInFlight, LatencyReport report) {
+        long next = System.nanoTime();
+        String endpoint = "scenario " + name;
+        try {
+            while (true) {
+                double gapSeconds = -Math.log(1 - ThreadLocalRandom.current().nextDouble()) / ratePerSecond;
+                next += (long) (gapSeconds * 1_000_000_000L);
+                if (next >= end) {
+                    return;
+                }
+                sleepUntil(next);
+
+                if (inFlight.incrementAndGet() > maxInFlight) {
+                    inFlight.decrementAndGet();
+                    dropped.incrementAndGet();
+                    continue;
+                }
+                long scheduledAt = next;
+                sessions.execute(() -> {
+                    boolean ok = false;
+                    boolean ran = true;
+                    try {
+                        ok = scenario.run();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } catch (ShopperScenarios.NoFreeCustomerException e) {
+                        // A limit of the harness, not a server failure
+                        ran = false;
+                        noFreeCustomer.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        // Unexpected response shape; counted as a failed session
+                    } finally {
+                        // Measured from the scheduled start, so queueing delay is included
+                        if (ran) {
+                            report.record(endpoint, System.nanoTime() - scheduledAt, !ok);
+                        }
+                        inFlight.decrementAndGet();
+                    }
+                });
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ShopperScenarios seed(ConfigurableApplicationContext context, ApiClient api) {
+        int productCount = Integer.getInteger("perf.products", 2000);
+        int categoryCount = Integer.getInteger("perf.categories", 20);
+        int customerCount = Integer.getInteger("perf.customers", 200);
+
+        CategoryRepository categoryRepository = context.getBean(CategoryRepository.class);
+        ProductRepository productRepository = context.getBean(ProductRepository.class);
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        PasswordEncoder passwordEncoder = context.getBean(PasswordEncoder.class);
+        JwtUtil jwtUtil = context.getBean(JwtUtil.class);
+
+        List<Category> categories = new ArrayList<>();
+        for (int i = 0; i < categoryCount; i++) {
+            categories.add(new Category("Category " + i, "Perf category " + i, "perf-category-" + i));
+        }
+        categories = categoryRepository.saveAll(categories);
+
+        List<Product> products = new ArrayList<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < productCount; i++) {
+            String name = ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " " + NOUNS[random.nextInt(NOUNS.length)]
+                    + " " + i;
+            Product product = new Product(name, String.format("PERF-%06d", i),
+                    BigDecimal.valueOf(500 + random.nextInt(50_000), 2), 1_000_000);
+            product.setDescription("A " + name + " for load testing");
+            product.setBrand("Brand " + random.nextInt(50));
+            product.setCategory(categories.get(i % categories.size()));
+            product.setFeatured(i % 25 == 0);
+            products.add(product);
+        }
+        List<Long> productIds = productRepository.saveAll(products).stream().map(Product::getId).toList();
+        List<Long> categoryIds = categories.stream().map(Category::getId).toList();
+
+        // One hash for everyone keeps seeding fast; logins still verify it at the configured cost
+        String passwordHash = passwordEncoder.encode(CUSTOMER_PASSWORD);
+        BlockingQueue<ShopperScenarios.Customer> customers = new LinkedBlockingQueue<>();
+        for (int i = 0; i < customerCount; i++) {
+            User user = userRepository.save(new User("Customer " + i, "customer" + i + "@perf.local", passwordHash));
+            customers.add(new ShopperScenarios.Customer(user.getEmail(), CUSTOMER_PASSWORD,
+                    jwtUtil.generateToken(user)));
+        }
+        User admin = userRepository.save(new User("Perf Admin", "admin@perf.local", passwordHash, Role.ADMIN));
+
+        List<String> keywords = new ArrayList<>(List.of(NOUNS));
+        keywords.addAll(List.of(ADJECTIVES));
+        System.out.printf("Seeded %d products in %d categories and %d customers%n",
+                productCount, categoryCount, customerCount);
+        return new ShopperScenarios(api, productIds, categoryIds, keywords, customers,
+                jwtUtil.generateToken(admin), Long.getLong("perf.payment-settle-ms", 200) + 100);
+    }
+
+    private static void sleepUntil(long nanoTime) throws InterruptedException {
+        long remaining = nanoTime - System.nanoTime();
+        if (remaining > 0) {
+            TimeUnit.NANOSECONDS.sleep(remaining);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Scenario {
+        boolean run() throws InterruptedException;
+    }
+}
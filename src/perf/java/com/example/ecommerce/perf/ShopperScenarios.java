@@ -0,0 +1,211 @@
+package com.example.ecommerce.perf;
+
+import tools.jackson.databind.JsonNode;
+
+import java.math.BigDecimal;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scripted shopper sessions. Each returns whether every step succeeded; individual requests are timed by
+ * ApiClient. Customers are borrowed from a pool so no two sessions use the same account (and cart) at once;
+ * a session that finds the pool empty throws NoFreeCustomerException instead of reporting a failure.
+ */
+public class ShopperScenarios {
+
+    private final ApiClient api;
+    private final List<Long> productIds;
+    private final List<Long> categoryIds;
+    private final List<String> keywords;
+    private final BlockingQueue<Customer> customers;
+    private final String adminToken;
+    private final long paymentSettleMillis;
+
+    // Paid orders waiting for fulfilment by the admin scenario
+    private final Queue<Long> paidOrders = new ConcurrentLinkedQueue<>();
+
+    public ShopperScenarios(ApiClient api, List<Long> productIds, List<Long> categoryIds, List<String> keywords,
+                            BlockingQueue<Customer> customers, String adminToken, long paymentSettleMillis) {
+        this.api = api;
+        this.productIds = productIds;
+        this.categoryIds = categoryIds;
+        this.keywords = keywords;
+        this.customers = customers;
+        this.adminToken = adminToken;
+        this.paymentSettleMillis = paymentSettleMillis;
+    }
+
+    // Anonymous catalogue browsing: listing, category page, a few product pages
+    public boolean browse() {
+        boolean ok = api.get("GET /api/products", "/api/products?size=20&page=" + random(10), Map.of()).isOk();
+        ok &= api.get("GET /api/categories", "/api/categories", Map.of()).isOk();
+        ok &= api.get("GET /api/products/category/{id}",
+                "/api/products/category/" + pick(categoryIds) + "?size=20", Map.of()).isOk();
+        for (int i = 0; i < 3; i++) {
+            ok &= api.get("GET /api/products/{id}", "/api/products/" + pick(productIds), Map.of()).isOk();
+        }
+        return ok;
+    }
+
+    // Keyword search, then open one result
+    public boolean search() {
+        String keyword = URLEncoder.encode(pick(keywords), StandardCharsets.UTF_8);
+        boolean ok = api.get("GET /api/products/search", "/api/products/search?size=20&keyword=" + keyword,
+                Map.of()).isOk();
+        ok &= api.get("GET /api/products/{id}", "/api/products/" + pick(productIds), Map.of()).isOk();
+        return ok;
+    }
+
+    // Guest fills a cart, signs in and merges the guest cart into their own
+    public boolean guestCartAndMerge() {
+        ApiClient.Response cart = api.get("GET /api/cart", "/api/cart", Map.of());
+        Optional<String> cartToken = cart.header("X-Cart-Token");
+        if (cartToken.isEmpty()) {
+            return false;
+        }
+        Map<String, String> guest = Map.of("X-Cart-Token", cartToken.get());
+        boolean ok = api.post("POST /api/cart/items", "/api/cart/items", addToCart(), guest).isOk();
+
+        Customer customer = borrowCustomer();
+        try {
+            Optional<String> token = api.post("POST /api/users/login", "/api/users/login",
+                            Map.of("email", customer.email, "password", customer.password), Map.of())
+                    .json()
+                    .map(body -> body.get("token").asString());
+            if (token.isEmpty()) {
+                return false;
+            }
+            customer.token = token.get();
+
+            Map<String, String> headers = new HashMap<>(guest);
+            headers.putAll(bearer(customer.token));
+            ok &= api.post("POST /api/cart/merge", "/api/cart/merge", null, headers).isOk();
+            return ok;
+        } finally {
+            customers.add(customer);
+        }
+    }
+
+    // Signed-in customer: add to cart, check out, create the payment intent, confirm once paid
+    public boolean checkoutAndPay() throws InterruptedException {
+        Customer customer = borrowCustomer();
+        try {
+            Map<String, String> auth = bearer(customer.token);
+            boolean ok = api.post("POST /api/cart/items", "/api/cart/items", addToCart(), auth).isOk();
+            ok &= api.post("POST /api/cart/items", "/api/cart/items", addToCart(), auth).isOk();
+            if (!ok) {
+                return false;
+            }
+
+            Map<String, String> checkoutHeaders = new HashMap<>(auth);
+            checkoutHeaders.put("Idempotency-Key", UUID.randomUUID().toString());
+            Optional<JsonNode> order = api.post("POST /api/orders/checkout", "/api/orders/checkout",
+                    checkoutRequest(customer), checkoutHeaders).json();
+            if (order.isEmpty()) {
+                return false;
+            }
+            long orderId = order.get().get("id").asLong();
+            BigDecimal amount = order.get().get("totalAmount").decimalValue();
+
+            Optional<JsonNode> intent = api.post("POST /api/payment/create-intent", "/api/payment/create-intent",
+                    Map.of("orderId", orderId, "amount", amount, "currency", "usd"), auth).json();
+            if (intent.isEmpty()) {
+                return false;
+            }
+
+            // The simulated shopper completes payment on the client side
+            TimeUnit.MILLISECONDS.sleep(paymentSettleMillis);
+
+            ok = api.post("POST /api/payment/confirm", "/api/payment/confirm",
+                    Map.of("orderId", orderId, "paymentIntentId", intent.get().get("paymentIntentId").asString()),
+                    auth).isOk();
+            if (ok) {
+                paidOrders.add(orderId);
+            }
+            return ok;
+        } finally {
+            customers.add(customer);
+        }
+    }
+
+    // Back office: move a paid order through fulfilment, or list recent orders when none is waiting
+    public boolean adminStatusUpdate() {
+        Map<String, String> auth = bearer(adminToken);
+        Long orderId = paidOrders.poll();
+        if (orderId == null) {
+            return api.get("GET /api/admin/orders", "/api/admin/orders?size=20", auth).isOk();
+        }
+        boolean ok = api.patch("PATCH /api/admin/orders/{id}/status", "/api/admin/orders/" + orderId + "/status",
+                Map.of("status", "PROCESSING"), auth).isOk();
+        ok &= api.patch("PATCH /api/admin/orders/{id}/status", "/api/admin/orders/" + orderId + "/status",
+                Map.of("status", "SHIPPED"), auth).isOk();
+        return ok;
+    }
+
+    private Map<String, Object> addToCart() {
+        return Map.of("productId", pick(productIds), "quantity", 1 + random(3));
+    }
+
+    private Map<String, Object> checkoutRequest(Customer customer) {
+        Map<String, Object> request = new HashMap<>();
+        request.put("shippingName", customer.email);
+        request.put("shippingAddress", random(9999) + " Market Street");
+        request.put("shippingCity", "Springfield");
+        request.put("shippingState", "IL");
+        request.put("shippingPostalCode", "62701");
+        request.put("shippingCountry", "US");
+        request.put("paymentMethod", "card");
+        return request;
+    }
+
+    private Customer borrowCustomer() {
+        Customer customer = customers.poll();
+        if (customer == null) {
+            throw new NoFreeCustomerException();
+        }
+        return customer;
+    }
+
+    private static Map<String, String> bearer(String token) {
+        return Map.of("Authorization", "Bearer " + token);
+    }
+
+    private static <T> T pick(List<T> values) {
+        return values.get(random(values.size()));
+    }
+
+    private static int random(int bound) {
+        return ThreadLocalRandom.current().nextInt(bound);
+    }
+
+    // Every customer is in a session: the pool is too small for the arrival rate
+    public static final class NoFreeCustomerException extends RuntimeException {
+
+        public NoFreeCustomerException() {
+            super("No free customer in the pool", null, false, false);
+        }
+    }
+
+    public static final class Customer {
+
+        private final String email;
+        private final String password;
+        private volatile String token;
+
+        public Customer(String email, String password, String token) {
+            this.email = email;
+            this.password = password;
+            this.token = token;
+        }
+    }
+}
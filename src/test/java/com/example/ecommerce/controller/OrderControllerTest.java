@@ -0,0 +1,65 @@
+package com.example.ecommerce.controller;
+
+import com.example.ecommerce.dto.CheckoutRequest;
+import com.example.ecommerce.service.CheckoutRejectedException;
+import com.example.ecommerce.service.IdempotencyService;
+import com.example.ecommerce.service.OrderService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OrderControllerTest {
+
+    private final Authentication authentication = UsernamePasswordAuthenticationToken.authenticated(
+            "user@example.com", null, AuthorityUtils.createAuthorityList("ROLE_CUSTOMER"));
+
+    private OrderService orderService;
+    private OrderController controller;
+
+    @BeforeEach
+    void setUp() {
+        orderService = mock(OrderService.class);
+        IdempotencyService idempotencyService = mock(IdempotencyService.class);
+        // Runs the action directly; what IdempotencyService does with its outcome is covered by its own test
+        when(idempotencyService.execute(anyString(), any(), eq("checkout"), any(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<ResponseEntity<?>>>getArgument(4).get());
+        controller = new OrderController(orderService, idempotencyService, null);
+    }
+
+    @Test
+    void businessRejectionIsA400WithTheReason() {
+        when(orderService.createOrderFromCart(anyString(), any()))
+                .thenThrow(new CheckoutRejectedException("Cannot create order from empty cart"));
+
+        ResponseEntity<?> response = controller.checkout(new CheckoutRequest(), "key-1", authentication);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(response.getBody()).isEqualTo(Map.of("error", "Cannot create order from empty cart"));
+    }
+
+    @Test
+    void infrastructureFailurePropagatesInsteadOfBecomingA400() {
+        when(orderService.createOrderFromCart(anyString(), any()))
+                .thenThrow(new CannotAcquireLockException("lock timeout"));
+
+        // IdempotencyService releases the key for an exception, so the retry can still complete the checkout
+        assertThatThrownBy(() -> controller.checkout(new CheckoutRequest(), "key-1", authentication))
+                .isInstanceOf(CannotAcquireLockException.class);
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.ecommerce.controller;
+
+import com.example.ecommerce.dto.PaymentConfirmationRequest;
+import com.example.ecommerce.service.PaymentGatewayUnavailableException;
+import com.example.ecommerce.service.PaymentService;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PaymentControllerTest {
+
+    @Test
+    void unavailableGatewayMapsTo503WithRetryAfter() {
+        PaymentService paymentService = mock(PaymentService.class);
+        when(paymentService.confirmPayment(any(), anyString(), anyString()))
+                .thenThrow(new PaymentGatewayUnavailableException("Payment gateway is unavailable", 17));
+        PaymentController controller = new PaymentController(paymentService, null, null);
+
+        PaymentConfirmationRequest request = new PaymentConfirmationRequest();
+        request.setOrderId(1L);
+        request.setPaymentIntentId("pi_1");
+        ResponseEntity<?> response = controller.confirmPayment(request,
+                UsernamePasswordAuthenticationToken.authenticated("user@example.com", null,
+                        AuthorityUtils.createAuthorityList("ROLE_CUSTOMER")));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("17");
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.ecommerce.security;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CartTokenServiceTest {
+
+    private static final String JWT_SECRET = "jwt-secret-for-cart-token-tests-0123456789";
+
+    private final CartTokenService cartTokenService = new CartTokenService("", JWT_SECRET);
+
+    @Test
+    void issuedTokenVerifiesToItsGuestId() {
+        String token = cartTokenService.issue();
+
+        assertThat(cartTokenService.verify(token)).contains(token.substring(0, token.indexOf('.')));
+    }
+
+    @Test
+    void issuedTokensAreDistinct() {
+        assertThat(cartTokenService.issue()).isNotEqualTo(cartTokenService.issue());
+    }
+
+    @Test
+    void rejectsTamperedGuestId() {
+        String token = cartTokenService.issue();
+        String tampered = flipFirstChar(token);
+
+        assertThat(cartTokenService.verify(tampered)).isEmpty();
+    }
+
+    @Test
+    void rejectsTamperedSignature() {
+        String token = cartTokenService.issue();
+        int dot = token.indexOf('.');
+        String tampered = token.substring(0, dot + 1) + flipFirstChar(token.substring(dot + 1));
+
+        assertThat(cartTokenService.verify(tampered)).isEmpty();
+    }
+
+    @Test
+    void rejectsTruncatedToken() {
+        String token = cartTokenService.issue();
+
+        assertThat(cartTokenService.verify(token.substring(0, token.length() - 1))).isEmpty();
+        assertThat(cartTokenService.verify(token.substring(0, token.indexOf('.') + 1))).isEmpty();
+        assertThat(cartTokenService.verify(token + "A")).isEmpty();
+    }
+
+    @Test
+    void rejectsMalformedTokens() {
+        String token = cartTokenService.issue();
+
+        assertThat(cartTokenService.verify(null)).isEmpty();
+        assertThat(cartTokenService.verify("")).isEmpty();
+        assertThat(cartTokenService.verify(token.replace(".", ""))).isEmpty();
+        assertThat(cartTokenService.verify(token.substring(token.indexOf('.')))).isEmpty();
+    }
+
+    @Test
+    void doesNotSignWithTheJwtSecretItself() throws Exception {
+        String id = "guest-id";
+        String signedWithJwtSecret = id + "." + Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(hmac(JWT_SECRET.getBytes(StandardCharsets.UTF_8), id));
+
+        assertThat(cartTokenService.verify(signedWithJwtSecret)).isEmpty();
+    }
+
+    @Test
+    void dedicatedSecretTakesPrecedence() {
+        CartTokenService dedicated = new CartTokenService("dedicated-cart-token-secret-0123456789", JWT_SECRET);
+
+        assertThat(dedicated.verify(dedicated.issue())).isPresent();
+        assertThat(dedicated.verify(cartTokenService.issue())).isEmpty();
+        assertThat(cartTokenService.verify(dedicated.issue())).isEmpty();
+    }
+
+    private static String flipFirstChar(String value) {
+        char replacement = value.charAt(0) == 'A' ? 'B' : 'A';
+        return replacement + value.substring(1);
+    }
+
+    private static byte[] hmac(byte[] key, String data) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(key, "HmacSHA256"));
+        return mac.doFinal(data.getBytes(StandardCharsets.US_ASCII));
+    }
+}
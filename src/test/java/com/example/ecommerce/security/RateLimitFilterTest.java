@@ -0,0 +1,144 @@
+package com.example.ecommerce.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class RateLimitFilterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        // login: 2 per IP; login-email: 1 per email; search: 1 per IP
+        filter = new RateLimitFilter(mock(JwtUtil.class), JsonMapper.builder().build(), meterRegistry, 100,
+                2, 0.2, 1, 0.02, 5, 0.05, 1, 0.5, 5, 0.1);
+        ReflectionTestUtils.setField(filter, "enabled", true);
+    }
+
+    @Test
+    void rejectsWith429AndRetryAfter() throws Exception {
+        assertThat(send(search("10.0.0.1")).getStatus()).isEqualTo(HttpStatus.OK.value());
+
+        MockHttpServletResponse rejected = send(search("10.0.0.1"));
+
+        assertThat(rejected.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+        assertThat(meterRegistry.get("rate-limit.rejections").tag("route", "search").counter().count())
+                .isEqualTo(1);
+        assertThat(send(search("10.0.0.2")).getStatus()).isEqualTo(HttpStatus.OK.value());
+    }
+
+    @Test
+    void matchesOnServletPathNotRawRequestUri() throws Exception {
+        MockHttpServletRequest first = search("10.0.0.1");
+        first.setContextPath("/shop");
+        first.setRequestURI("/shop/api/products/search;jsessionid=abc");
+        send(first);
+
+        MockHttpServletRequest second = search("10.0.0.1");
+        second.setRequestURI("/api/products//search");
+
+        assertThat(send(second).getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+    }
+
+    @Test
+    void limitsFailedLoginsPerEmailAcrossIps() throws Exception {
+        assertThat(sendFailing(login("10.0.0.1", "Victim@Example.com")).getStatus())
+                .isEqualTo(HttpStatus.UNAUTHORIZED.value());
+
+        MockHttpServletResponse rejected = sendFailing(login("10.0.0.2", "victim@example.com"));
+
+        assertThat(rejected.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        assertThat(meterRegistry.get("rate-limit.rejections").tag("route", "login-email").counter().count())
+                .isEqualTo(1);
+        assertThat(send(login("10.0.0.2", "other@example.com")).getStatus()).isEqualTo(HttpStatus.OK.value());
+    }
+
+    @Test
+    void successfulLoginsDoNotChargeTheEmailBucket() throws Exception {
+        assertThat(send(login("10.0.0.1", "user@example.com")).getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(send(login("10.0.0.2", "user@example.com")).getStatus()).isEqualTo(HttpStatus.OK.value());
+
+        // The budget is still there for a mistyped password
+        assertThat(sendFailing(login("10.0.0.3", "user@example.com")).getStatus())
+                .isEqualTo(HttpStatus.UNAUTHORIZED.value());
+    }
+
+    @Test
+    void loginBodyReachesTheControllerIntact() throws Exception {
+        MockHttpServletRequest request = login("10.0.0.1", "user@example.com");
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        byte[] forwarded = chain.getRequest().getInputStream().readAllBytes();
+        assertThat(new String(forwarded, StandardCharsets.UTF_8)).isEqualTo(loginBody("user@example.com"));
+    }
+
+    @Test
+    void loginWithoutEmailIsOnlyLimitedPerIp() throws Exception {
+        MockHttpServletRequest malformed = login("10.0.0.1", "ignored");
+        malformed.setContent("{\"email\":".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(send(malformed).getStatus()).isEqualTo(HttpStatus.OK.value());
+    }
+
+    @Test
+    void otherRoutesAreNotLimited() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products/1");
+            request.setServletPath("/api/products/1");
+            assertThat(send(request).getStatus()).isEqualTo(HttpStatus.OK.value());
+        }
+    }
+
+    private MockHttpServletResponse send(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    // The controller rejects the credentials
+    private MockHttpServletResponse sendFailing(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response,
+                (req, res) -> ((HttpServletResponse) res).setStatus(HttpStatus.UNAUTHORIZED.value()));
+        return response;
+    }
+
+    private static MockHttpServletRequest search(String remoteAddr) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products/search");
+        request.setServletPath("/api/products/search");
+        request.setRemoteAddr(remoteAddr);
+        return request;
+    }
+
+    private static MockHttpServletRequest login(String remoteAddr, String email) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/users/login");
+        request.setServletPath("/api/users/login");
+        request.setRemoteAddr(remoteAddr);
+        request.setContentType("application/json");
+        request.setContent(loginBody(email).getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private static String loginBody(String email) {
+        return "{\"email\":\"" + email + "\",\"password\":\"secret\"}";
+    }
+}
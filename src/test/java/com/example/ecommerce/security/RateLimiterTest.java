@@ -0,0 +1,103 @@
+package com.example.ecommerce.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class RateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void allowsBurstThenReportsTimeUntilNextToken() {
+        RateLimiter limiter = new RateLimiter(2, 1, 100);
+
+        assertThat(limiter.tryAcquire("a", 0)).isZero();
+        assertThat(limiter.tryAcquire("a", 0)).isZero();
+        assertThat(limiter.tryAcquire("a", 0)).isCloseTo(SECOND, within(1L));
+        assertThat(limiter.tryAcquire("a", SECOND / 4)).isCloseTo(SECOND * 3 / 4, within(1L));
+    }
+
+    @Test
+    void refillsAtTheSustainedRateUpToCapacity() {
+        RateLimiter limiter = new RateLimiter(2, 1, 100);
+        limiter.tryAcquire("a", 0);
+        limiter.tryAcquire("a", 0);
+
+        assertThat(limiter.tryAcquire("a", SECOND)).isZero();
+        assertThat(limiter.tryAcquire("a", SECOND)).isPositive();
+
+        // A long pause refills the burst, not more
+        assertThat(limiter.tryAcquire("a", 100 * SECOND)).isZero();
+        assertThat(limiter.tryAcquire("a", 100 * SECOND)).isZero();
+        assertThat(limiter.tryAcquire("a", 100 * SECOND)).isPositive();
+    }
+
+    @Test
+    void waitTimeChecksWithoutTakingATokenSoOnlyChargesCount() {
+        RateLimiter limiter = new RateLimiter(1, 1, 100);
+
+        assertThat(limiter.waitTime("a", 0)).isZero();
+        assertThat(limiter.waitTime("a", 0)).isZero();
+        assertThat(limiter.size()).isZero();
+
+        limiter.tryAcquire("a", 0);
+
+        assertThat(limiter.waitTime("a", 0)).isCloseTo(SECOND, within(1L));
+        assertThat(limiter.waitTime("a", SECOND)).isZero();
+    }
+
+    @Test
+    void keysHaveIndependentBuckets() {
+        RateLimiter limiter = new RateLimiter(1, 1, 100);
+
+        assertThat(limiter.tryAcquire("a", 0)).isZero();
+        assertThat(limiter.tryAcquire("a", 0)).isPositive();
+        assertThat(limiter.tryAcquire("b", 0)).isZero();
+    }
+
+    @Test
+    void evictsOnlyBucketsIdleLongEnoughToBeFull() {
+        RateLimiter limiter = new RateLimiter(2, 1, 100);
+        limiter.tryAcquire("a", 0);
+        limiter.tryAcquire("b", SECOND);
+
+        assertThat(limiter.evictIdle(SECOND)).isZero();
+        assertThat(limiter.evictIdle(2 * SECOND)).isEqualTo(1);
+        assertThat(limiter.size()).isEqualTo(1);
+        assertThat(limiter.evictIdle(3 * SECOND)).isEqualTo(1);
+        assertThat(limiter.size()).isZero();
+    }
+
+    @Test
+    void keysBeyondTheCapShareOneStrictBucket() {
+        RateLimiter limiter = new RateLimiter(2, 1, 2);
+        limiter.tryAcquire("a", 0);
+        limiter.tryAcquire("b", 0);
+
+        assertThat(limiter.tryAcquire("c", 0)).isZero();
+        assertThat(limiter.tryAcquire("d", 0)).isZero();
+        assertThat(limiter.tryAcquire("e", 0)).isPositive();
+        assertThat(limiter.size()).isEqualTo(3);
+
+        // Keys that already have a bucket keep it
+        assertThat(limiter.tryAcquire("a", 0)).isZero();
+    }
+
+    @Test
+    void evictionMakesRoomForNewKeysAgain() {
+        RateLimiter limiter = new RateLimiter(1, 1, 1);
+        limiter.tryAcquire("a", 0);
+        limiter.tryAcquire("b", 0);
+        assertThat(limiter.tryAcquire("c", 0)).isPositive();
+
+        limiter.evictIdle(SECOND);
+
+        assertThat(limiter.tryAcquire("c", SECOND)).isZero();
+        assertThat(limiter.tryAcquire("d", SECOND)).isZero();
+        assertThat(limiter.tryAcquire("e", SECOND)).isPositive();
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.ecommerce.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTest {
+
+    private static final long OPEN_DURATION_MS = 1000;
+
+    private final AtomicLong clock = new AtomicLong();
+
+    // window 10, at least 4 calls, opens at 50% failures, 2 half-open probes
+    private final CircuitBreaker breaker = new CircuitBreaker(10, 4, 50, OPEN_DURATION_MS, 2, clock::get);
+
+    @Test
+    void staysClosedBelowMinimumCalls() {
+        fail(3);
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void opensWhenFailureRateReachesThreshold() {
+        succeed(2);
+        fail(1);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        fail(1);
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquirePermission()).isNull();
+        assertThat(breaker.getRemainingOpenMillis()).isEqualTo(OPEN_DURATION_MS);
+    }
+
+    @Test
+    void staysClosedBelowThreshold() {
+        succeed(3);
+        fail(2);
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void movesToHalfOpenAfterOpenDuration() {
+        open();
+
+        advance(OPEN_DURATION_MS - 1);
+        assertThat(breaker.tryAcquirePermission()).isNull();
+
+        advance(1);
+        CircuitBreaker.Permission probe = breaker.tryAcquirePermission();
+        assertThat(probe).isNotNull();
+        assertThat(probe.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+    }
+
+    @Test
+    void halfOpenAdmitsOnlyMaxProbes() {
+        open();
+        advance(OPEN_DURATION_MS);
+
+        assertThat(breaker.tryAcquirePermission()).isNotNull();
+        assertThat(breaker.tryAcquirePermission()).isNotNull();
+        assertThat(breaker.tryAcquirePermission()).isNull();
+    }
+
+    @Test
+    void successfulProbesCloseTheBreaker() {
+        open();
+        advance(OPEN_DURATION_MS);
+        CircuitBreaker.Permission first = breaker.tryAcquirePermission();
+        CircuitBreaker.Permission second = breaker.tryAcquirePermission();
+
+        breaker.onSuccess(first);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        breaker.onSuccess(second);
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        // The window starts empty again
+        fail(3);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void failedProbeReopensTheBreaker() {
+        open();
+        advance(OPEN_DURATION_MS);
+        CircuitBreaker.Permission probe = breaker.tryAcquirePermission();
+
+        breaker.onFailure(probe);
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.getRemainingOpenMillis()).isEqualTo(OPEN_DURATION_MS);
+    }
+
+    @Test
+    void ignoredProbeFreesItsSlot() {
+        open();
+        advance(OPEN_DURATION_MS);
+        CircuitBreaker.Permission first = breaker.tryAcquirePermission();
+        breaker.tryAcquirePermission();
+        assertThat(breaker.tryAcquirePermission()).isNull();
+
+        breaker.onIgnored(first);
+
+        assertThat(breaker.tryAcquirePermission()).isNotNull();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+    }
+
+    @Test
+    void ignoredCallIsNotRecordedWhileClosed() {
+        for (int i = 0; i < 10; i++) {
+            breaker.onIgnored(breaker.tryAcquirePermission());
+        }
+        fail(3);
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void slowCallFromClosedPeriodDoesNotCountAsProbe() {
+        CircuitBreaker.Permission slowCall = breaker.tryAcquirePermission();
+        open();
+        advance(OPEN_DURATION_MS);
+        CircuitBreaker.Permission probe = breaker.tryAcquirePermission();
+
+        // Neither outcome of the stale call may decide the half-open trial
+        breaker.onFailure(slowCall);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        breaker.onSuccess(slowCall);
+        breaker.onSuccess(probe);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+
+        breaker.onSuccess(breaker.tryAcquirePermission());
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    private void open() {
+        fail(4);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    private void succeed(int calls) {
+        for (int i = 0; i < calls; i++) {
+            breaker.onSuccess(breaker.tryAcquirePermission());
+        }
+    }
+
+    private void fail(int calls) {
+        for (int i = 0; i < calls; i++) {
+            breaker.onFailure(breaker.tryAcquirePermission());
+        }
+    }
+
+    private void advance(long millis) {
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+}
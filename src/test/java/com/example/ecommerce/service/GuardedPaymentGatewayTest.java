@@ -0,0 +1,153 @@
+package com.example.ecommerce.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GuardedPaymentGatewayTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private GuardedPaymentGateway gateway;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (gateway != null) {
+            gateway.shutdown();
+        }
+    }
+
+    @Test
+    void rejectsCallsBeyondBulkheadWith503RetryAfter() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        gateway = guarded(new StubGateway() {
+            @Override
+            public PaymentGatewayIntent retrieveIntent(String paymentIntentId) {
+                started.countDown();
+                awaitRelease();
+                return intent(paymentIntentId, PaymentGatewayIntent.SUCCEEDED);
+            }
+        }, 1, 5000);
+
+        CompletableFuture<PaymentGatewayIntent> first = CompletableFuture.supplyAsync(() -> gateway.retrieveIntent("pi_1"));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> gateway.retrieveIntent("pi_2"))
+                .isInstanceOfSatisfying(PaymentGatewayUnavailableException.class,
+                        e -> assertThat(e.getRetryAfterSeconds()).isEqualTo(1));
+        assertThat(meterRegistry.get("payment.gateway.rejections").tag("reason", "bulkhead-full").counter().count())
+                .isEqualTo(1);
+
+        release.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS).getStatus()).isEqualTo(PaymentGatewayIntent.SUCCEEDED);
+    }
+
+    @Test
+    void timedOutCallIsUnavailableAndCountsAsFailure() {
+        gateway = guarded(new StubGateway() {
+            @Override
+            public PaymentGatewayIntent retrieveIntent(String paymentIntentId) {
+                awaitRelease();
+                return intent(paymentIntentId, PaymentGatewayIntent.SUCCEEDED);
+            }
+        }, 10, 50);
+
+        assertThatThrownBy(() -> gateway.retrieveIntent("pi_1"))
+                .isInstanceOfSatisfying(PaymentGatewayUnavailableException.class,
+                        e -> assertThat(e.getRetryAfterSeconds()).isEqualTo(1));
+        assertThat(meterRegistry.get("payment.gateway.timeouts").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void openCircuitRejectsWithRemainingOpenTime() {
+        gateway = guarded(new StubGateway() {
+            @Override
+            public PaymentGatewayIntent retrieveIntent(String paymentIntentId) {
+                throw new PaymentGatewayException("provider down", null, true);
+            }
+        }, 10, 1000);
+
+        // minimum-calls is 2 in guarded(); two transient failures open the breaker
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> gateway.retrieveIntent("pi")).isInstanceOf(PaymentGatewayException.class);
+        }
+        assertThat(gateway.getCircuitState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        assertThatThrownBy(() -> gateway.retrieveIntent("pi"))
+                .isInstanceOfSatisfying(PaymentGatewayUnavailableException.class,
+                        e -> assertThat(e.getRetryAfterSeconds()).isBetween(1L, 30L));
+        assertThat(meterRegistry.get("payment.gateway.rejections").tag("reason", "circuit-open").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void rejectedRequestDoesNotOpenTheCircuit() {
+        gateway = guarded(new StubGateway() {
+            @Override
+            public PaymentGatewayIntent retrieveIntent(String paymentIntentId) {
+                throw new PaymentGatewayException("No such payment_intent");
+            }
+        }, 10, 1000);
+
+        for (int i = 0; i < 5; i++) {
+            assertThatThrownBy(() -> gateway.retrieveIntent("pi")).isInstanceOf(PaymentGatewayException.class)
+                    .isNotInstanceOf(PaymentGatewayUnavailableException.class);
+        }
+        assertThat(gateway.getCircuitState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    private GuardedPaymentGateway guarded(PaymentGateway delegate, int maxConcurrentCalls, long timeoutMs) {
+        GuardedPaymentGateway guarded = new GuardedPaymentGateway(delegate, meterRegistry, maxConcurrentCalls,
+                10, 2, 50, 30_000, 1);
+        ReflectionTestUtils.setField(guarded, "createTimeoutMs", timeoutMs);
+        ReflectionTestUtils.setField(guarded, "retrieveTimeoutMs", timeoutMs);
+        ReflectionTestUtils.setField(guarded, "cancelTimeoutMs", timeoutMs);
+        return guarded;
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static PaymentGatewayIntent intent(String id, String status) {
+        return new PaymentGatewayIntent(id, id + "_secret", status, 1000L, "usd");
+    }
+
+    private abstract static class StubGateway implements PaymentGateway {
+
+        @Override
+        public PaymentGatewayIntent createIntent(long amountInCents, String currency, Map<String, String> metadata,
+                                                 String description) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public PaymentGatewayIntent retrieveIntent(String paymentIntentId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public PaymentGatewayIntent cancelIntent(String paymentIntentId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String getName() {
+            return "stub";
+        }
+    }
+}
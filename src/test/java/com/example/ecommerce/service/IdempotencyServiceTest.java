@@ -0,0 +1,256 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.model.IdempotencyRecord;
+import com.example.ecommerce.model.IdempotencyStatus;
+import com.example.ecommerce.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.BeanUtils;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IdempotencyServiceTest {
+
+    private static final String USER = "user@example.com";
+
+    // Stands in for the idempotency_records table, keyed like its unique constraint
+    private final Map<String, IdempotencyRecord> records = new ConcurrentHashMap<>();
+    private final AtomicInteger executions = new AtomicInteger();
+
+    private IdempotencyRecordRepository repository;
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(IdempotencyRecordRepository.class);
+        when(repository.tryClaim(anyString(), anyString(), anyString(), anyString(), any(), any()))
+                .thenAnswer(invocation -> records.putIfAbsent(
+                        key(invocation.getArgument(0), invocation.getArgument(1)),
+                        record(invocation.getArgument(2), invocation.getArgument(3), IdempotencyStatus.IN_PROGRESS,
+                                null, null, invocation.getArgument(5))) == null ? 1 : 0);
+        when(repository.findByUserEmailAndIdempotencyKey(anyString(), anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(
+                        records.get(key(invocation.getArgument(0), invocation.getArgument(1)))));
+        when(repository.complete(anyString(), anyString(), anyInt(), any(), any()))
+                .thenAnswer(invocation -> {
+                    String key = key(invocation.getArgument(0), invocation.getArgument(1));
+                    IdempotencyRecord claimed = records.get(key);
+                    records.put(key, record(claimed.getOperation(), claimed.getRequestHash(),
+                            IdempotencyStatus.COMPLETED, invocation.getArgument(2), invocation.getArgument(3),
+                            invocation.getArgument(4)));
+                    return 1;
+                });
+        when(repository.release(anyString(), anyString()))
+                .thenAnswer(invocation -> records.remove(key(invocation.getArgument(0), invocation.getArgument(1))) == null
+                        ? 0 : 1);
+
+        idempotencyService = new IdempotencyService(repository, JsonMapper.builder().build());
+        ReflectionTestUtils.setField(idempotencyService, "ttlHours", 24L);
+        ReflectionTestUtils.setField(idempotencyService, "leaseMs", 60_000L);
+        ReflectionTestUtils.setField(idempotencyService, "waitTimeoutMs", 10_000L);
+        ReflectionTestUtils.setField(idempotencyService, "pollIntervalMs", 20L);
+        ReflectionTestUtils.setField(idempotencyService, "cleanupBatchSize", 2);
+    }
+
+    @Test
+    void replaysStoredResponseWithoutRunningTheActionAgain() {
+        ResponseEntity<?> first = idempotencyService.execute(USER, "key-1", "checkout", Map.of("cartId", 1),
+                () -> created(42));
+        ResponseEntity<?> retry = idempotencyService.execute(USER, "key-1", "checkout", Map.of("cartId", 1),
+                () -> created(43));
+
+        assertThat(executions).hasValue(1);
+        assertThat(first.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(first.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER)).isNull();
+        assertThat(retry.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(retry.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(retry.getBody()).isEqualTo("{\"orderId\":42}");
+    }
+
+    @Test
+    void inFlightDuplicateWaitsForTheFirstExecution() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<ResponseEntity<?>> first = CompletableFuture.supplyAsync(() ->
+                idempotencyService.execute(USER, "key-1", "checkout", Map.of("cartId", 1), () -> {
+                    started.countDown();
+                    await(release);
+                    return created(42);
+                }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<ResponseEntity<?>> duplicate = CompletableFuture.supplyAsync(() ->
+                idempotencyService.execute(USER, "key-1", "checkout", Map.of("cartId", 1), () -> created(43)));
+        // The duplicate found the key in progress and is now waiting on it
+        verify(repository, timeout(5000).atLeastOnce()).findByUserEmailAndIdempotencyKey(USER, "key-1");
+        assertThat(duplicate).isNotDone();
+
+        release.countDown();
+        ResponseEntity<?> replayed = duplicate.get(5, TimeUnit.SECONDS);
+
+        assertThat(first.get(5, TimeUnit.SECONDS).getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(executions).hasValue(1);
+        assertThat(replayed.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(replayed.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(replayed.getBody()).isEqualTo("{\"orderId\":42}");
+    }
+
+    @Test
+    void rejectsKeyReusedWithDifferentRequestBody() {
+        idempotencyService.execute(USER, "key-1", "checkout", Map.of("cartId", 1), () -> created(42));
+
+        ResponseEntity<?> response = idempotencyService.execute(USER, "key-1", "checkout", Map.of("cartId", 2),
+                () -> created(43));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void rejectsKeyReusedForDifferentOperation() {
+        idempotencyService.execute(USER, "key-1", "checkout", Map.of("cartId", 1), () -> created(42));
+
+        ResponseEntity<?> response = idempotencyService.execute(USER, "key-1", "create-intent", Map.of("cartId", 1),
+                () -> created(43));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void serverErrorReleasesTheKeySoRetryRunsAgain() {
+        ResponseEntity<?> failed = idempotencyService.execute(USER, "key-1", "checkout", Map.of("cartId", 1), () -> {
+            executions.incrementAndGet();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        });
+        ResponseEntity<?> retry = idempotencyService.execute(USER, "key-1", "checkout", Map.of("cartId", 1),
+                () -> created(42));
+
+        assertThat(failed.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(retry.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(retry.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER)).isNull();
+        assertThat(executions).hasValue(2);
+    }
+
+    @Test
+    void failedActionReleasesTheKeySoRetryRunsAgain() {
+        assertThatThrownBy(() -> idempotencyService.execute(USER, "key-1", "checkout", Map.of("cartId", 1), () -> {
+            executions.incrementAndGet();
+            throw new CannotAcquireLockException("lock timeout");
+        })).isInstanceOf(CannotAcquireLockException.class);
+
+        ResponseEntity<?> retry = idempotencyService.execute(USER, "key-1", "checkout", Map.of("cartId", 1),
+                () -> created(42));
+
+        assertThat(retry.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(executions).hasValue(2);
+    }
+
+    @Test
+    void failingToStoreTheResponseNeverReopensACommittedAction() {
+        ReflectionTestUtils.setField(idempotencyService, "waitTimeoutMs", 100L);
+        doThrow(new DataAccessResourceFailureException("connection reset"))
+                .when(repository).complete(anyString(), anyString(), anyInt(), any(), any());
+
+        ResponseEntity<?> first = idempotencyService.execute(USER, "key-1", "checkout", Map.of("cartId", 1),
+                () -> created(42));
+        ResponseEntity<?> retry = idempotencyService.execute(USER, "key-1", "checkout", Map.of("cartId", 1),
+                () -> created(43));
+
+        // The client still gets the committed result; the key stays in progress rather than being released
+        assertThat(first.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        verify(repository, times(3)).complete(anyString(), anyString(), anyInt(), any(), any());
+        verify(repository, never()).release(anyString(), anyString());
+        assertThat(retry.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void storingTheResponseIsRetried() {
+        doThrow(new DataAccessResourceFailureException("connection reset")).doReturn(1)
+                .when(repository).complete(anyString(), anyString(), anyInt(), any(), any());
+
+        ResponseEntity<?> response = idempotencyService.execute(USER, "key-1", "checkout", Map.of("cartId", 1),
+                () -> created(42));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        verify(repository, times(2)).complete(anyString(), anyString(), anyInt(), any(), any());
+        verify(repository, never()).release(anyString(), anyString());
+    }
+
+    @Test
+    void purgesExpiredRecordsInBatchesUntilABatchComesBackShort() {
+        when(repository.deleteExpired(any(), eq(2))).thenReturn(2, 2, 1);
+
+        idempotencyService.purgeExpiredRecords();
+
+        verify(repository, times(3)).deleteExpired(any(), eq(2));
+    }
+
+    @Test
+    void purgeStopsAfterEmptyBatch() {
+        when(repository.deleteExpired(any(), eq(2))).thenReturn(2, 0);
+
+        idempotencyService.purgeExpiredRecords();
+
+        verify(repository, times(2)).deleteExpired(any(), eq(2));
+    }
+
+    private ResponseEntity<?> created(long orderId) {
+        executions.incrementAndGet();
+        return ResponseEntity.status(HttpStatus.CREATED).body(Map.of("orderId", orderId));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String key(String userEmail, String idempotencyKey) {
+        return userEmail + "\n" + idempotencyKey;
+    }
+
+    private static IdempotencyRecord record(String operation, String requestHash, IdempotencyStatus status,
+                                            Integer responseStatus, String responseBody, LocalDateTime expiresAt) {
+        IdempotencyRecord record = BeanUtils.instantiateClass(IdempotencyRecord.class);
+        ReflectionTestUtils.setField(record, "id", 1L);
+        ReflectionTestUtils.setField(record, "operation", operation);
+        ReflectionTestUtils.setField(record, "requestHash", requestHash);
+        ReflectionTestUtils.setField(record, "status", status);
+        ReflectionTestUtils.setField(record, "responseStatus", responseStatus);
+        ReflectionTestUtils.setField(record, "responseBody", responseBody);
+        ReflectionTestUtils.setField(record, "expiresAt", expiresAt);
+        return record;
+    }
+}
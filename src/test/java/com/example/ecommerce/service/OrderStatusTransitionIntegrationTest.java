@@ -0,0 +1,164 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.dto.BulkOrderStatusResponse;
+import com.example.ecommerce.dto.BulkOrderStatusResult;
+import com.example.ecommerce.model.Order;
+import com.example.ecommerce.model.OrderItem;
+import com.example.ecommerce.model.OrderStatus;
+import com.example.ecommerce.model.Product;
+import com.example.ecommerce.model.User;
+import com.example.ecommerce.repository.OrderRepository;
+import com.example.ecommerce.repository.ProductRepository;
+import com.example.ecommerce.repository.UserRepository;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * The guarded bulk transition against PostgreSQL: the native UPDATE ... RETURNING decides which orders move,
+ * and stock is restored only for those.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("payment-sim")
+class OrderStatusTransitionIntegrationTest {
+
+    private static EmbeddedPostgres postgres;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User user;
+    private Product product;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) throws IOException {
+        postgres = EmbeddedPostgres.builder().start();
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "create-drop");
+        registry.add("jwt.secret", () -> "order-status-transition-test-secret-0123456789");
+        registry.add("jwt.expiration", () -> "3600000");
+    }
+
+    @AfterAll
+    static void stopDatabase() throws IOException {
+        postgres.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        String suffix = UUID.randomUUID().toString();
+        user = userRepository.save(new User("Transition Test", "transition-" + suffix + "@test.local", "hash"));
+        product = productRepository.save(new Product("Widget", "SKU-" + suffix, new BigDecimal("10.00"), 5));
+    }
+
+    @Test
+    void cancelReportsOutcomePerOrderAndRestoresStockOnce() {
+        Order pending = saveOrder(OrderStatus.PENDING, 2);
+        Order confirmed = saveOrder(OrderStatus.CONFIRMED, 3);
+        Order shipped = saveOrder(OrderStatus.SHIPPED, 4);
+        Long missingId = shipped.getId() + 1000;
+
+        BulkOrderStatusResponse response = orderService.bulkUpdateOrderStatus(
+                List.of(pending.getId(), confirmed.getId(), shipped.getId(), missingId, pending.getId()),
+                OrderStatus.CANCELLED, "Out of stock");
+
+        assertThat(response.getResults())
+                .extracting(BulkOrderStatusResult::getOrderId, BulkOrderStatusResult::getOutcome,
+                        BulkOrderStatusResult::getCurrentStatus)
+                .containsExactly(
+                        tuple(pending.getId(), BulkOrderStatusResult.UPDATED, "CANCELLED"),
+                        tuple(confirmed.getId(), BulkOrderStatusResult.UPDATED, "CANCELLED"),
+                        tuple(shipped.getId(), BulkOrderStatusResult.INVALID_TRANSITION, "SHIPPED"),
+                        tuple(missingId, BulkOrderStatusResult.NOT_FOUND, null));
+        assertThat(stock()).isEqualTo(5 + 2 + 3);
+
+        Order cancelled = orderRepository.findById(pending.getId()).orElseThrow();
+        assertThat(cancelled.getStatus()).isEqualTo(OrderStatus.CANCELLED);
+        assertThat(cancelled.getCancelledAt()).isNotNull();
+        assertThat(cancelled.getCancellationReason()).isEqualTo("Out of stock");
+        assertThat(orderRepository.findById(shipped.getId()).orElseThrow().getStatus())
+                .isEqualTo(OrderStatus.SHIPPED);
+
+        // A repeated request finds nothing to move, so nothing is restored twice
+        BulkOrderStatusResponse repeated = orderService.bulkUpdateOrderStatus(
+                List.of(pending.getId(), confirmed.getId()), OrderStatus.CANCELLED, "Out of stock");
+
+        assertThat(repeated.getResults())
+                .extracting(BulkOrderStatusResult::getOutcome)
+                .containsOnly(BulkOrderStatusResult.INVALID_TRANSITION);
+        assertThat(stock()).isEqualTo(5 + 2 + 3);
+    }
+
+    @Test
+    void refundRestoresStockOnlyForMovedOrders() {
+        Order delivered = saveOrder(OrderStatus.DELIVERED, 2);
+        Order pending = saveOrder(OrderStatus.PENDING, 3);
+
+        BulkOrderStatusResponse response = orderService.bulkUpdateOrderStatus(
+                List.of(delivered.getId(), pending.getId()), OrderStatus.REFUNDED, null);
+
+        assertThat(response.getResults())
+                .extracting(BulkOrderStatusResult::getOutcome)
+                .containsExactly(BulkOrderStatusResult.UPDATED, BulkOrderStatusResult.INVALID_TRANSITION);
+        assertThat(stock()).isEqualTo(5 + 2);
+
+        orderService.bulkUpdateOrderStatus(List.of(delivered.getId()), OrderStatus.REFUNDED, null);
+
+        assertThat(stock()).isEqualTo(5 + 2);
+    }
+
+    @Test
+    void transitionWithoutStockEffectLeavesStockAlone() {
+        Order confirmed = saveOrder(OrderStatus.CONFIRMED, 2);
+
+        BulkOrderStatusResponse response = orderService.bulkUpdateOrderStatus(
+                List.of(confirmed.getId()), OrderStatus.SHIPPED, null);
+
+        assertThat(response.getUpdatedCount()).isEqualTo(1);
+        assertThat(orderRepository.findById(confirmed.getId()).orElseThrow().getShippedAt()).isNotNull();
+        assertThat(stock()).isEqualTo(5);
+    }
+
+    private Order saveOrder(OrderStatus status, int quantity) {
+        Order order = new Order(user, "TEST-" + UUID.randomUUID());
+        order.addItem(new OrderItem(product, quantity, product.getPrice()));
+        order.setTax(BigDecimal.ZERO);
+        order.calculateTotals();
+        order.setShippingName("Test Customer");
+        order.setShippingAddress("1 Test Street");
+        order.setShippingCity("Testville");
+        order.setShippingPostalCode("12345");
+        order.setShippingCountry("US");
+        order.setStatus(status);
+        return orderRepository.save(order);
+    }
+
+    private int stock() {
+        return productRepository.findById(product.getId()).orElseThrow().getStockQuantity();
+    }
+}
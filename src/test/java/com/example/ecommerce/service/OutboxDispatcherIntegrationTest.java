@@ -0,0 +1,237 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.model.OutboxEvent;
+import com.example.ecommerce.model.OutboxEventStatus;
+import com.example.ecommerce.repository.OutboxEventRepository;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The outbox dispatcher against PostgreSQL: claiming with a lease, exponential retry backoff, dead-lettering
+ * after max-attempts, outcomes that outlived their lease, and purging of dispatched events.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("payment-sim")
+class OutboxDispatcherIntegrationTest {
+
+    private static final String TEST_EVENT = "TEST_EVENT";
+
+    // PostgreSQL rounds stored times to microseconds
+    private static final Duration SLACK = Duration.ofMillis(1);
+
+    private static final AtomicBoolean failing = new AtomicBoolean();
+    private static final AtomicInteger deliveries = new AtomicInteger();
+
+    private static EmbeddedPostgres postgres;
+
+    @Autowired
+    private OutboxDispatcher outboxDispatcher;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @TestConfiguration
+    static class HandlerConfig {
+
+        @Bean
+        OutboxEventHandler testEventHandler() {
+            return new OutboxEventHandler() {
+                @Override
+                public boolean supports(String eventType) {
+                    return TEST_EVENT.equals(eventType);
+                }
+
+                @Override
+                public void handle(OutboxEvent event) {
+                    deliveries.incrementAndGet();
+                    if (failing.get()) {
+                        throw new IllegalStateException("downstream unavailable");
+                    }
+                }
+            };
+        }
+    }
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) throws IOException {
+        postgres = EmbeddedPostgres.builder().start();
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "create-drop");
+        registry.add("jwt.secret", () -> "outbox-dispatcher-test-secret-0123456789abcdef");
+        registry.add("jwt.expiration", () -> "3600000");
+        // The tests drive the dispatcher themselves; the scheduled poll only runs once, at startup
+        registry.add("outbox.dispatcher.poll-interval-ms", () -> "3600000");
+        registry.add("outbox.dispatcher.max-attempts", () -> "3");
+        registry.add("outbox.dispatcher.retry-backoff-ms", () -> "1000");
+        registry.add("outbox.dispatcher.handler-timeout-ms", () -> "2000");
+        registry.add("outbox.dispatcher.lease-ms", () -> "60000");
+        registry.add("outbox.retention-days", () -> "7");
+    }
+
+    @AfterAll
+    static void stopDatabase() throws IOException {
+        postgres.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        outboxEventRepository.deleteAll();
+        failing.set(false);
+        deliveries.set(0);
+    }
+
+    @Test
+    void deliveredEventIsMarkedDispatched() {
+        OutboxEvent event = save();
+
+        outboxDispatcher.dispatchPendingEvents();
+
+        OutboxEvent dispatched = reload(event);
+        assertThat(dispatched.getStatus()).isEqualTo(OutboxEventStatus.DISPATCHED);
+        assertThat(dispatched.getAttempts()).isEqualTo(1);
+        assertThat(dispatched.getDispatchedAt()).isNotNull();
+        assertThat(deliveries).hasValue(1);
+    }
+
+    @Test
+    void failedEventIsRetriedWithExponentialBackoff() {
+        failing.set(true);
+        OutboxEvent event = save();
+
+        LocalDateTime before = LocalDateTime.now();
+        outboxDispatcher.dispatchPendingEvents();
+        LocalDateTime after = LocalDateTime.now();
+
+        OutboxEvent retried = reload(event);
+        assertThat(retried.getStatus()).isEqualTo(OutboxEventStatus.PENDING);
+        assertThat(retried.getAttempts()).isEqualTo(1);
+        assertThat(retried.getLastError()).contains("downstream unavailable");
+        assertThat(retried.getNextAttemptAt())
+                .isBetween(before.plusSeconds(1).minus(SLACK), after.plusSeconds(1).plus(SLACK));
+
+        // Not due yet, so the next poll leaves it alone
+        outboxDispatcher.dispatchPendingEvents();
+        assertThat(deliveries).hasValue(1);
+
+        makeDue(event);
+        before = LocalDateTime.now();
+        outboxDispatcher.dispatchPendingEvents();
+        after = LocalDateTime.now();
+
+        retried = reload(event);
+        assertThat(retried.getAttempts()).isEqualTo(2);
+        assertThat(retried.getNextAttemptAt())
+                .isBetween(before.plusSeconds(2).minus(SLACK), after.plusSeconds(2).plus(SLACK));
+    }
+
+    @Test
+    void eventIsDeadLetteredAfterMaxAttempts() {
+        failing.set(true);
+        OutboxEvent event = save();
+
+        for (int attempt = 0; attempt < 3; attempt++) {
+            makeDue(event);
+            outboxDispatcher.dispatchPendingEvents();
+        }
+
+        OutboxEvent dead = reload(event);
+        assertThat(dead.getStatus()).isEqualTo(OutboxEventStatus.DEAD);
+        assertThat(dead.getAttempts()).isEqualTo(3);
+        assertThat(deliveries).hasValue(3);
+
+        makeDue(event);
+        outboxDispatcher.dispatchPendingEvents();
+        assertThat(deliveries).hasValue(3);
+    }
+
+    @Test
+    void outcomeIsDroppedOnceTheLeaseWasReclaimed() {
+        OutboxEvent event = save();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime firstLease = now.plusSeconds(60).truncatedTo(ChronoUnit.MICROS);
+
+        List<OutboxEvent> first = tx.execute(status -> outboxEventRepository.claimNextBatch(now, firstLease, 10));
+        assertThat(first).extracting(OutboxEvent::getId).containsExactly(event.getId());
+
+        // Hidden while leased
+        assertThat(tx.execute(status -> outboxEventRepository.claimNextBatch(now, firstLease, 10))).isEmpty();
+
+        // The first claimant overran its lease and another poller took the event over
+        LocalDateTime later = firstLease.plusSeconds(1);
+        LocalDateTime secondLease = later.plusSeconds(60).truncatedTo(ChronoUnit.MICROS);
+        List<OutboxEvent> second = tx.execute(status -> outboxEventRepository.claimNextBatch(later, secondLease, 10));
+        assertThat(second).extracting(OutboxEvent::getId).containsExactly(event.getId());
+
+        Integer stale = tx.execute(status -> outboxEventRepository.recordOutcome(event.getId(), firstLease,
+                OutboxEventStatus.DEAD, 10, firstLease, "stale", null));
+        assertThat(stale).isZero();
+        assertThat(reload(event).getStatus()).isEqualTo(OutboxEventStatus.PENDING);
+
+        Integer current = tx.execute(status -> outboxEventRepository.recordOutcome(event.getId(), secondLease,
+                OutboxEventStatus.DISPATCHED, 1, secondLease, null, later));
+        assertThat(current).isEqualTo(1);
+        assertThat(reload(event).getStatus()).isEqualTo(OutboxEventStatus.DISPATCHED);
+    }
+
+    @Test
+    void purgeRemovesOnlyDispatchedEventsPastRetention() {
+        OutboxEvent old = save();
+        OutboxEvent recent = save();
+        outboxDispatcher.dispatchPendingEvents();
+        failing.set(true);
+        OutboxEvent pending = save();
+        outboxDispatcher.dispatchPendingEvents();
+        jdbcTemplate.update("UPDATE outbox_events SET dispatched_at = ?, created_at = ? WHERE id IN (?, ?)",
+                LocalDateTime.now().minusDays(8), LocalDateTime.now().minusDays(8), old.getId(), pending.getId());
+
+        outboxDispatcher.purgeDispatchedEvents();
+
+        assertThat(outboxEventRepository.findAll())
+                .extracting(OutboxEvent::getId)
+                .containsExactlyInAnyOrder(recent.getId(), pending.getId());
+    }
+
+    private OutboxEvent save() {
+        return outboxEventRepository.save(new OutboxEvent("Test", 1L, TEST_EVENT, "{}"));
+    }
+
+    private OutboxEvent reload(OutboxEvent event) {
+        return outboxEventRepository.findById(event.getId()).orElseThrow();
+    }
+
+    private void makeDue(OutboxEvent event) {
+        jdbcTemplate.update("UPDATE outbox_events SET next_attempt_at = ? WHERE id = ?",
+                LocalDateTime.now().minusSeconds(1), event.getId());
+    }
+}